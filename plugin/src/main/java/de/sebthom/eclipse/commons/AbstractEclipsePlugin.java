@@ -160,7 +160,12 @@ public void start(final BundleContext context) throws Exception {
 
    @Override
    public void stop(final BundleContext context) throws Exception {
-      getLogger().info("stopping...");
+      final var logger = getLogger();
+      logger.info("stopping...");
+      logger.logSuppressedSummaries();
+      // pass pending asynchronously logged statuses to the platform log, stop the writer thread and close the structured log
+      logger.disableAsync();
+      logger.disableStructuredLog();
       super.stop(context);
    }
 }
@@ -6,6 +6,9 @@
  */
 package de.sebthom.eclipse.commons.internal;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import org.eclipse.jdt.annotation.Nullable;
 import org.osgi.framework.BundleContext;
 
@@ -31,6 +34,15 @@ public static PluginLogger log() {
       return get().getLogger();
    }
 
+   private final List<Runnable> stopListeners = new CopyOnWriteArrayList<>();
+
+   /**
+    * Registers a callback that is invoked when this plugin is stopped, e.g. to unregister workspace listeners.
+    */
+   public void addStopListener(final Runnable listener) {
+      stopListeners.add(listener);
+   }
+
    @Override
    public void start(final BundleContext context) throws Exception {
       super.start(context);
@@ -40,6 +52,14 @@ public void start(final BundleContext context) throws Exception {
 
    @Override
    public void stop(final BundleContext context) throws Exception {
+      for (final var listener : stopListeners) {
+         try {
+            listener.run();
+         } catch (final RuntimeException ex) {
+            logger.error(ex);
+         }
+      }
+      stopListeners.clear();
       instance = null;
       super.stop(context);
    }
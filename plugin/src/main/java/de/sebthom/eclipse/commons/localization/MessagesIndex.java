@@ -0,0 +1,275 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.localization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.sf.jstuff.core.validation.NullAnalysisHelper.asNonNullUnsafe;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.jdt.annotation.Nullable;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.namespace.HostNamespace;
+import org.osgi.framework.wiring.BundleWiring;
+
+import net.sf.jstuff.core.logging.Logger;
+import net.sf.jstuff.core.reflection.Fields;
+
+/**
+ * Index of the message values resolved by {@link MessagesInitializer} for a messages class and locale, stored in the data area of
+ * the bundle containing the messages class.
+ * <p>
+ * Loading the index replaces parsing the <code>.properties</code> files of all locale variants and scanning <code>plugin.xml</code>
+ * with a single file read. The index is only valid for the same version and modification time of the bundle and its attached
+ * fragments, which may contribute message properties, and is not used in development mode.
+ *
+ * @author Sebastian Thomschke
+ */
+final class MessagesIndex {
+
+   private static final Logger LOG = Logger.create();
+
+   private static final int FORMAT_VERSION = 1;
+
+   private final @Nullable Path file;
+   private final String key;
+
+   /** field name -> message value */
+   final Map<String, String> values = new LinkedHashMap<>();
+
+   /** message properties without corresponding field that are not referenced by <code>plugin.xml</code> */
+   final List<String> unusedProperties = new ArrayList<>();
+
+   /** fields that have no value */
+   final List<String> uninitializedFields = new ArrayList<>();
+
+   /**
+    * Creates an index that is not backed by a file.
+    */
+   MessagesIndex() {
+      file = null;
+      key = "";
+   }
+
+   /**
+    * @param key identifies the state of the messages the index was created for, an index file with a different key is ignored
+    */
+   MessagesIndex(final Path file, final String key) {
+      this.file = file;
+      this.key = key;
+   }
+
+   private static void appendState(final StringBuilder key, final Bundle bundle) {
+      key.append('|').append(bundle.getSymbolicName()) //
+         .append('|').append(bundle.getVersion()) //
+         .append('|').append(bundle.getLastModified());
+   }
+
+   /**
+    * Assigns the indexed values to the static fields of the given class.
+    */
+   void apply(final Class<?> messagesClass) {
+      MethodHandles.@Nullable Lookup lookup;
+      try {
+         lookup = MethodHandles.privateLookupIn(messagesClass, MethodHandles.lookup());
+      } catch (final IllegalAccessException ex) {
+         lookup = null;
+      }
+
+      for (final var entry : values.entrySet()) {
+         final var fieldName = entry.getKey();
+         final var value = entry.getValue();
+         if (lookup != null) {
+            try {
+               lookup.findStaticVarHandle(messagesClass, fieldName, String.class).set(value);
+               continue;
+            } catch (final ReflectiveOperationException | RuntimeException ex) {
+               // field is not of type String, fall back to reflection
+            }
+         }
+
+         try {
+            Fields.write(null, asNonNullUnsafe(Fields.find(messagesClass, fieldName)), value);
+         } catch (final Exception ex) {
+            LOG.error(ex);
+         }
+      }
+   }
+
+   /**
+    * @return the fragments currently attached to the given bundle, sorted by symbolic name
+    */
+   private static List<Bundle> getFragments(final Bundle bundle) {
+      final var wiring = bundle.adapt(BundleWiring.class);
+      if (wiring == null)
+         return List.of();
+      final var wires = wiring.getProvidedWires(HostNamespace.HOST_NAMESPACE);
+      if (wires == null)
+         return List.of();
+
+      final var fragments = new ArrayList<Bundle>(wires.size());
+      for (final var wire : wires) {
+         fragments.add(wire.getRequirer().getBundle());
+      }
+      fragments.sort(Comparator.comparing(Bundle::getSymbolicName, Comparator.nullsFirst(Comparator.naturalOrder())));
+      return fragments;
+   }
+
+   /**
+    * Replaces the content of this index with the content of the index file.
+    *
+    * @return <code>false</code> if the index is not backed by a file, the file does not exist, is unreadable or was created for a different key
+    */
+   boolean load() {
+      final var file = this.file;
+      if (file == null)
+         return false;
+
+      final byte[] bytes;
+      try {
+         bytes = Files.readAllBytes(file);
+      } catch (final NoSuchFileException ex) {
+         return false;
+      } catch (final IOException ex) {
+         LOG.debug(ex, "Cannot read messages index %s", file);
+         return false;
+      }
+
+      try (var in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+         if (in.readInt() != FORMAT_VERSION || !key.equals(readString(in)))
+            return false;
+
+         values.clear();
+         for (int i = in.readInt(); i > 0; i--) {
+            values.put(readString(in), readString(in));
+         }
+         unusedProperties.clear();
+         unusedProperties.addAll(readStrings(in));
+         uninitializedFields.clear();
+         uninitializedFields.addAll(readStrings(in));
+         return true;
+      } catch (final IOException | RuntimeException ex) {
+         LOG.debug(ex, "Invalid messages index %s", file);
+         values.clear();
+         unusedProperties.clear();
+         uninitializedFields.clear();
+         return false;
+      }
+   }
+
+   /**
+    * @return an empty index for the given messages class, not backed by a file if the class is not loaded by a bundle with a data
+    *         area or the platform runs in development mode
+    */
+   static MessagesIndex of(final String messageBundleName, final Class<?> messagesClass, final String locale) {
+      try {
+         final var bundle = FrameworkUtil.getBundle(messagesClass);
+         if (bundle == null || Platform.inDevelopmentMode())
+            return new MessagesIndex();
+
+         final var file = bundle.getDataFile("messages/" + messagesClass.getName() + '_' + locale + ".idx");
+         if (file == null)
+            return new MessagesIndex();
+
+         final var key = new StringBuilder(messageBundleName).append('|').append(locale);
+         appendState(key, bundle);
+         for (final var fragment : getFragments(bundle)) {
+            appendState(key, fragment);
+         }
+         return new MessagesIndex(file.toPath(), key.toString());
+      } catch (final RuntimeException ex) {
+         LOG.debug(ex, "Cannot determine messages index location of %s", messagesClass.getName());
+         return new MessagesIndex();
+      }
+   }
+
+   private static String readString(final DataInputStream in) throws IOException {
+      final var bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new String(bytes, UTF_8);
+   }
+
+   private static List<String> readStrings(final DataInputStream in) throws IOException {
+      final int size = in.readInt();
+      final var strings = new ArrayList<String>(size);
+      for (int i = 0; i < size; i++) {
+         strings.add(readString(in));
+      }
+      return strings;
+   }
+
+   /**
+    * Writes the content of this index to the index file.
+    */
+   void save() {
+      final var file = this.file;
+      if (file == null)
+         return;
+
+      try {
+         final var bytes = new ByteArrayOutputStream(4096);
+         try (var out = new DataOutputStream(bytes)) {
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, key);
+            out.writeInt(values.size());
+            for (final var entry : values.entrySet()) {
+               writeString(out, entry.getKey());
+               writeString(out, entry.getValue());
+            }
+            writeStrings(out, unusedProperties);
+            writeStrings(out, uninitializedFields);
+         }
+
+         final var dir = asNonNullUnsafe(file.toAbsolutePath().getParent());
+         Files.createDirectories(dir);
+         // write to a temporary file first so concurrently starting instances never read a partially written index
+         final var tmpFile = Files.createTempFile(dir, String.valueOf(file.getFileName()), ".tmp");
+         try {
+            Files.write(tmpFile, bytes.toByteArray());
+            try {
+               Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException ex) {
+               Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+         } finally {
+            Files.deleteIfExists(tmpFile);
+         }
+      } catch (final IOException ex) {
+         LOG.debug(ex, "Cannot write messages index %s", file);
+      }
+   }
+
+   private static void writeString(final DataOutputStream out, final String value) throws IOException {
+      final var bytes = value.getBytes(UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private static void writeStrings(final DataOutputStream out, final List<String> values) throws IOException {
+      out.writeInt(values.size());
+      for (final var value : values) {
+         writeString(out, value);
+      }
+   }
+}
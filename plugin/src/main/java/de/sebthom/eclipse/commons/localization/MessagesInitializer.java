@@ -32,6 +32,9 @@ public final class MessagesInitializer {
 
    /**
     * Alternative to {@link NLS#initializeMessages(String, Class)} which does not support default field values.
+    * <p>
+    * The resolved values are stored in an index in the data area of the bundle containing the messages class, so subsequent
+    * startups with the same locale and bundle version do not need to parse the message properties files again.
     *
     * @param messageBundleName the base name of a fully qualified message properties file.
     * @param messagesClass the class where the constants will exist
@@ -39,19 +42,51 @@ public final class MessagesInitializer {
     * @see NLS#initializeMessages(String, Class)
     */
    public static void initializeMessages(final String messageBundleName, final Class<?> messagesClass) {
+      final var locale = Locale.getDefault().toString();
+
+      /*
+       * apply values of the index created on a previous startup
+       */
+      final var index = MessagesIndex.of(messageBundleName, messagesClass, locale);
+      if (index.load()) {
+         index.apply(messagesClass);
+         logProblems(index);
+         return;
+      }
+
+      resolveMessages(messageBundleName, messagesClass, locale, index);
+      index.apply(messagesClass);
+      logProblems(index);
+      index.save();
+   }
+
+   private static void logProblems(final MessagesIndex index) {
+      for (final var propertyName : index.unusedProperties) {
+         LOG.warn("Unused message property: %s", propertyName);
+      }
+      for (final var fieldName : index.uninitializedFields) {
+         LOG.error("Uninizialied message property: %s", fieldName);
+      }
+   }
+
+   /**
+    * Resolves the message values of the given locale from the message properties files and adds them to the given index.
+    */
+   private static void resolveMessages(final String messageBundleName, final Class<?> messagesClass, final String locale,
+         final MessagesIndex index) {
       /*
        * calculate names of message properties files based on current locale
        */
       final List<String> messagePropFiles = new ArrayList<>(4);
       {
          final var root = messageBundleName.replace('.', '/');
-         var locale = Locale.getDefault().toString();
+         var variant = locale;
          while (true) {
-            messagePropFiles.add(root + '_' + locale + ".properties");
-            if (locale.lastIndexOf('_') == -1) {
+            messagePropFiles.add(root + '_' + variant + ".properties");
+            if (variant.lastIndexOf('_') == -1) {
                break;
             }
-            locale = Strings.substringBeforeLast(locale, "_");
+            variant = Strings.substringBeforeLast(variant, "_");
          }
          messagePropFiles.add(root + ".properties");
          Collections.reverse(messagePropFiles);
@@ -86,34 +121,29 @@ public static void initializeMessages(final String messageBundleName, final Clas
       }
 
       /*
-       * apply message properties to fields
+       * map message properties to fields
        */
       for (final var entry : messageProps.entrySet()) {
          final var fieldName = entry.getKey().toString();
          final var field = Fields.find(messagesClass, fieldName);
          if (field == null) {
             if (!pluginXml.contains("\"%" + fieldName + "\"")) {
-               LOG.warn("Unused message property: %s", fieldName);
+               index.unusedProperties.add(fieldName);
             }
             continue;
          }
-
-         try {
-            Fields.write(null, field, entry.getValue());
-         } catch (final Exception ex) {
-            LOG.error(ex);
-         }
+         index.values.put(fieldName, entry.getValue().toString());
       }
 
       /*
        * ensure all fields are set
        */
       for (final var field : messagesClass.getFields()) {
-         if (!Members.isStatic(field)) {
+         if (!Members.isStatic(field) || index.values.containsKey(field.getName())) {
             continue;
          }
          if (Fields.read(null, field) == null) {
-            LOG.error("Uninizialied message property: %s", field.getName());
+            index.uninitializedFields.add(field.getName());
          }
       }
    }
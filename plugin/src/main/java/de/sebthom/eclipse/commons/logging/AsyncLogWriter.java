@@ -0,0 +1,232 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.sebthom.eclipse.commons.logging.PluginLogger.OverflowPolicy;
+import net.sf.jstuff.core.logging.Logger;
+
+/**
+ * Passes statuses to a {@link Target}, e.g. the platform log, on a single background thread.
+ * <p>
+ * Statuses are enqueued into a bounded lock-free multi-producer/single-consumer ring buffer: producers claim a slot by advancing the
+ * tail via CAS and publish the status into the slot, the writer thread takes published statuses at the head and clears the slot.
+ *
+ * @author Sebastian Thomschke
+ */
+final class AsyncLogWriter {
+
+   /**
+    * Receives the enqueued statuses on the writer thread.
+    */
+   @FunctionalInterface
+   interface Target {
+
+      /**
+       * @param timestamp time in milliseconds when the status was enqueued
+       * @param threadName name of the thread that enqueued the status
+       */
+      void log(IStatus status, long timestamp, String threadName);
+   }
+
+   private record Entry(IStatus status, long timestamp, String threadName) {
+   }
+
+   private static final Logger LOG = Logger.create();
+
+   /** with {@link OverflowPolicy#SAMPLE} only one of this many non-error statuses is accepted when the buffer is half full */
+   static final int SAMPLE_RATE = 10;
+
+   private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+   private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+   private final String pluginId;
+   private final Target target;
+   private final OverflowPolicy overflowPolicy;
+   private final AtomicReferenceArray<@Nullable Entry> slots;
+   private final int capacity;
+   private final int mask;
+
+   /** index of the next slot to be claimed by a producer */
+   private final AtomicLong tail = new AtomicLong();
+   /** index of the next slot to be taken by the writer, only modified by the writer thread */
+   private volatile long head;
+
+   private final AtomicLong droppedCount = new AtomicLong();
+   private final AtomicLong droppedTotal = new AtomicLong();
+   private final AtomicLong sampleCounter = new AtomicLong();
+
+   private final Thread writerThread;
+   private volatile boolean isWriterWaiting;
+   private volatile boolean isStopped;
+
+   /**
+    * @param pluginId used for the writer thread name and the statuses reporting dropped statuses
+    */
+   AsyncLogWriter(final String pluginId, final Target target, final int bufferSize, final OverflowPolicy overflowPolicy) {
+      this.pluginId = pluginId;
+      this.target = target;
+      this.overflowPolicy = overflowPolicy;
+      capacity = bufferSize <= 2 ? 2 : Integer.highestOneBit(bufferSize - 1) << 1; // next power of two
+      mask = capacity - 1;
+      slots = new AtomicReferenceArray<>(capacity);
+
+      writerThread = new Thread(this::run, pluginId + " log writer");
+      writerThread.setDaemon(true);
+      writerThread.start();
+   }
+
+   /**
+    * Waits until all statuses enqueued before this call were passed to the log.
+    *
+    * @return false if the timeout elapsed before
+    */
+   boolean flush(final long timeoutMS) {
+      final long target = tail.get();
+      final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMS);
+      while (head < target) {
+         if (System.nanoTime() - deadline >= 0 || !writerThread.isAlive())
+            return head >= target;
+         LockSupport.unpark(writerThread);
+         LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+      }
+      return true;
+   }
+
+   int getCapacity() {
+      return capacity;
+   }
+
+   /**
+    * @return number of statuses dropped because of buffer overflows
+    */
+   long getDroppedCount() {
+      return droppedTotal.get();
+   }
+
+   private void log(final IStatus status, final long timestamp, final String threadName) {
+      try {
+         target.log(status, timestamp, threadName);
+      } catch (final RuntimeException ex) {
+         // the target, e.g. the platform log, itself failed, so report via the file logger
+         LOG.error(ex, "Passing status to the log failed: %s", status);
+      }
+   }
+
+   private void logDropped() {
+      final long dropped = droppedCount.getAndSet(0);
+      if (dropped > 0) {
+         log(new Status(IStatus.WARNING, pluginId, dropped + " log entries were dropped because the log buffer was full."),
+            System.currentTimeMillis(), Thread.currentThread().getName());
+      }
+   }
+
+   /**
+    * @return false if the status was not enqueued and must be logged by the caller, i.e. if the writer is stopped or the caller is
+    *         the writer thread itself, e.g. a log listener that logs
+    */
+   boolean offer(final IStatus status) {
+      if (isStopped || Thread.currentThread() == writerThread)
+         return false;
+
+      while (true) {
+         final long t = tail.get();
+         final long used = t - head;
+         if (used >= capacity) {
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+               LockSupport.unpark(writerThread);
+               LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+               if (isStopped)
+                  return false;
+               continue;
+            }
+            onDropped();
+            return true;
+         }
+
+         if (overflowPolicy == OverflowPolicy.SAMPLE && used >= capacity / 2 && status.getSeverity() < IStatus.ERROR
+               && sampleCounter.incrementAndGet() % SAMPLE_RATE != 0) {
+            onDropped();
+            return true;
+         }
+
+         if (tail.compareAndSet(t, t + 1)) {
+            slots.set((int) (t & mask), new Entry(status, System.currentTimeMillis(), Thread.currentThread().getName()));
+            if (isWriterWaiting) {
+               LockSupport.unpark(writerThread);
+            }
+            return true;
+         }
+      }
+   }
+
+   private void onDropped() {
+      droppedCount.incrementAndGet();
+      droppedTotal.incrementAndGet();
+   }
+
+   private void run() {
+      while (true) {
+         if (takeAndLog()) {
+            continue;
+         }
+         logDropped();
+         if (isStopped && head == tail.get())
+            return;
+
+         isWriterWaiting = true;
+         // re-check after announcing the wait, so a status published concurrently is not left waiting for the park timeout
+         if (slots.get((int) (head & mask)) == null) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+         }
+         isWriterWaiting = false;
+      }
+   }
+
+   /**
+    * Stops the writer thread after it passed all enqueued statuses to the log. Statuses offered afterwards are rejected.
+    */
+   void stop(final long timeoutMS) throws InterruptedException {
+      isStopped = true;
+      LockSupport.unpark(writerThread);
+      writerThread.join(timeoutMS);
+      if (writerThread.isAlive())
+         return;
+
+      // log statuses enqueued by producers that passed the isStopped check after the writer thread exited
+      while (head < tail.get()) {
+         if (!takeAndLog()) {
+            Thread.onSpinWait();
+         }
+      }
+      logDropped();
+   }
+
+   /**
+    * @return false if the slot at the head was not yet published
+    */
+   private boolean takeAndLog() {
+      final long h = head;
+      final int index = (int) (h & mask);
+      final var entry = slots.get(index);
+      if (entry == null)
+         return false;
+
+      slots.set(index, null);
+      head = h + 1;
+      log(entry.status, entry.timestamp, entry.threadName);
+      return true;
+   }
+}
@@ -0,0 +1,201 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jdt.annotation.Nullable;
+
+import net.sf.jstuff.core.exception.Exceptions;
+
+/**
+ * Writes log records as JSON lines, i.e. one JSON object per line, to a file that is rotated when it exceeds a maximum size.
+ * <p>
+ * Records are buffered and written to disk when the buffer is full, when a record with {@link IStatus#ERROR} severity is written
+ * and on {@link #flush()}/{@link #close()}.
+ *
+ * @author Sebastian Thomschke
+ */
+final class JsonLinesLogSink implements Closeable {
+
+   private static final int BUFFER_SIZE = 16 * 1024;
+
+   private final Path file;
+   private final long maxFileSize;
+   private final int maxBackupFiles;
+
+   private @Nullable OutputStream out;
+   private long fileSize;
+
+   /**
+    * @param maxFileSize size in bytes after which the file is rotated
+    * @param maxBackupFiles number of rotated files to keep, named <code>&lt;file&gt;.1</code> (newest) to
+    *           <code>&lt;file&gt;.&lt;maxBackupFiles&gt;</code>
+    */
+   JsonLinesLogSink(final Path file, final long maxFileSize, final int maxBackupFiles) throws IOException {
+      this.file = file;
+      this.maxFileSize = maxFileSize;
+      this.maxBackupFiles = maxBackupFiles;
+      final var parent = file.getParent();
+      if (parent != null) {
+         Files.createDirectories(parent);
+      }
+      open();
+   }
+
+   private static void appendField(final StringBuilder sb, final String name, final @Nullable String value) {
+      if (value == null)
+         return;
+      sb.append(",\"").append(name).append("\":");
+      appendString(sb, value);
+   }
+
+   private static void appendString(final StringBuilder sb, final String value) {
+      sb.append('"');
+      for (int i = 0, len = value.length(); i < len; i++) {
+         final char ch = value.charAt(i);
+         switch (ch) {
+            case '"' -> sb.append("\\\"");
+            case '\\' -> sb.append("\\\\");
+            case '\n' -> sb.append("\\n");
+            case '\r' -> sb.append("\\r");
+            case '\t' -> sb.append("\\t");
+            default -> {
+               if (ch < 0x20) {
+                  sb.append(String.format("\\u%04x", (int) ch));
+               } else {
+                  sb.append(ch);
+               }
+            }
+         }
+      }
+      sb.append('"');
+   }
+
+   private static StringBuilder beginRecord(final long timestamp, final String pluginId, final int severity, final String threadName) {
+      final var sb = new StringBuilder(256);
+      sb.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(timestamp)).append('"');
+      appendField(sb, "plugin", pluginId);
+      appendField(sb, "severity", toSeverityName(severity));
+      appendField(sb, "thread", threadName);
+      return sb;
+   }
+
+   @Override
+   public synchronized void close() throws IOException {
+      final var out = this.out;
+      if (out != null) {
+         this.out = null;
+         out.close();
+      }
+   }
+
+   synchronized void flush() throws IOException {
+      final var out = this.out;
+      if (out != null) {
+         out.flush();
+      }
+   }
+
+   Path getFile() {
+      return file;
+   }
+
+   private void open() throws IOException {
+      out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE);
+      fileSize = Files.size(file);
+   }
+
+   private void rotate() throws IOException {
+      close();
+      try {
+         if (maxBackupFiles > 0) {
+            Files.deleteIfExists(toBackupFile(maxBackupFiles));
+            for (int i = maxBackupFiles - 1; i > 0; i--) {
+               final var backupFile = toBackupFile(i);
+               if (Files.exists(backupFile)) {
+                  Files.move(backupFile, toBackupFile(i + 1), StandardCopyOption.REPLACE_EXISTING);
+               }
+            }
+            Files.move(file, toBackupFile(1), StandardCopyOption.REPLACE_EXISTING);
+         } else {
+            Files.deleteIfExists(file);
+         }
+      } finally {
+         // reopen even if moving the files failed, so the sink is not left closed and keeps appending to the current file
+         open();
+      }
+   }
+
+   private Path toBackupFile(final int index) {
+      return file.resolveSibling(file.getFileName() + "." + index);
+   }
+
+   private static String toSeverityName(final int severity) {
+      return switch (severity) {
+         case IStatus.OK -> "OK";
+         case IStatus.INFO -> "INFO";
+         case IStatus.WARNING -> "WARNING";
+         case IStatus.ERROR -> "ERROR";
+         case IStatus.CANCEL -> "CANCEL";
+         default -> String.valueOf(severity);
+      };
+   }
+
+   private synchronized void write(final StringBuilder record, final boolean flush) throws IOException {
+      final var bytes = record.append("}\n").toString().getBytes(UTF_8);
+      if (out == null)
+         return; // closed
+
+      if (fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+         rotate();
+      }
+      final var out = this.out;
+      if (out == null)
+         return;
+      out.write(bytes);
+      fileSize += bytes.length;
+      if (flush) {
+         out.flush();
+      }
+   }
+
+   /**
+    * Writes a record of an operation's duration with {@link IStatus#INFO} severity.
+    */
+   void writeDuration(final long timestamp, final String pluginId, final String threadName, final String operation,
+         final long durationMS) throws IOException {
+      final var record = beginRecord(timestamp, pluginId, IStatus.INFO, threadName);
+      appendField(record, "operation", operation);
+      record.append(",\"durationMs\":").append(durationMS);
+      write(record, false);
+   }
+
+   void writeStatus(final long timestamp, final String pluginId, final String threadName, final IStatus status) throws IOException {
+      final var record = beginRecord(timestamp, pluginId, status.getSeverity(), threadName);
+      appendField(record, "message", status.getMessage());
+      if (status.getCode() != 0) {
+         record.append(",\"code\":").append(status.getCode());
+      }
+      final var ex = status.getException();
+      if (ex != null) {
+         appendField(record, "exception", Exceptions.getStackTrace(ex));
+      }
+      write(record, status.getSeverity() >= IStatus.ERROR);
+   }
+}
@@ -0,0 +1,101 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Counters of the statuses logged via {@link PluginLogger}s per plugin and severity, including statuses suppressed by the rate
+ * limit.
+ *
+ * @author Sebastian Thomschke
+ */
+public abstract class LogMetrics {
+
+   private static final int SEVERITY_COUNT = 5;
+
+   private static final Map<String, AtomicLongArray> COUNTERS_BY_PLUGIN = new ConcurrentHashMap<>();
+
+   private static int checkedIndexOf(final int severity) {
+      final int index = indexOf(severity);
+      if (index < 0)
+         throw new IllegalArgumentException("Unsupported severity: " + severity);
+      return index;
+   }
+
+   /**
+    * @return the number of statuses with the given severity logged by all plugins
+    */
+   public static long getCount(final int severity) {
+      final int index = checkedIndexOf(severity);
+      long count = 0;
+      for (final var counters : COUNTERS_BY_PLUGIN.values()) {
+         count += counters.get(index);
+      }
+      return count;
+   }
+
+   /**
+    * @return the number of statuses with the given severity logged by the given plugin
+    */
+   public static long getCount(final String pluginId, final int severity) {
+      final var counters = COUNTERS_BY_PLUGIN.get(pluginId);
+      final int index = checkedIndexOf(severity);
+      return counters == null ? 0 : counters.get(index);
+   }
+
+   /**
+    * @return the counters of the given plugin, to be passed to {@link #increment(AtomicLongArray, int)}
+    */
+   static AtomicLongArray getCounters(final String pluginId) {
+      return COUNTERS_BY_PLUGIN.computeIfAbsent(pluginId, id -> new AtomicLongArray(SEVERITY_COUNT));
+   }
+
+   /**
+    * @return the ids of the plugins that have logged statuses
+    */
+   public static Set<String> getPluginIds() {
+      return Set.copyOf(COUNTERS_BY_PLUGIN.keySet());
+   }
+
+   static void increment(final AtomicLongArray counters, final int severity) {
+      final int index = indexOf(severity);
+      if (index >= 0) {
+         counters.incrementAndGet(index);
+      }
+   }
+
+   /**
+    * @return the counter index of the given severity or -1 if unsupported
+    */
+   private static int indexOf(final int severity) {
+      return switch (severity) {
+         case IStatus.OK -> 0;
+         case IStatus.INFO -> 1;
+         case IStatus.WARNING -> 2;
+         case IStatus.ERROR -> 3;
+         case IStatus.CANCEL -> 4;
+         default -> -1;
+      };
+   }
+
+   /**
+    * Resets all counters to zero.
+    */
+   public static void reset() {
+      for (final var counters : COUNTERS_BY_PLUGIN.values()) {
+         for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+         }
+      }
+   }
+}
@@ -0,0 +1,174 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.osgi.util.NLS;
+
+import net.sf.jstuff.core.collection.LRUMap;
+
+/**
+ * Suppresses repeatedly logged statuses via a token bucket per status fingerprint, i.e. per severity, message template, exception
+ * type and top stack frame of the exception. The number of suppressed statuses per fingerprint is summarized periodically.
+ * <p>
+ * At most {@value #MAX_FINGERPRINTS} buckets are kept. The suppressed count of an evicted bucket is kept until the next summary, so no
+ * suppressed status goes unreported.
+ *
+ * @author Sebastian Thomschke
+ */
+final class LogRateLimiter {
+
+   static final int MAX_FINGERPRINTS = 256;
+
+   private record Fingerprint(int severity, @Nullable String template, @Nullable String exceptionType,
+         @Nullable StackTraceElement topFrame) {
+
+      static Fingerprint of(final IStatus status, final @Nullable String template) {
+         final var ex = status.getException();
+         if (ex == null)
+            return new Fingerprint(status.getSeverity(), template, null, null);
+         final var stackTrace = ex.getStackTrace();
+         return new Fingerprint(status.getSeverity(), template, ex.getClass().getName(), stackTrace.length == 0 ? null
+               : stackTrace[0]);
+      }
+   }
+
+   private static final class Bucket {
+      long tokens;
+      long lastRefillNanos;
+      long suppressedCount;
+
+      Bucket(final long tokens, final long nowNanos) {
+         this.tokens = tokens;
+         lastRefillNanos = nowNanos;
+      }
+   }
+
+   private final String pluginId;
+   private final int burst;
+   private final long refillIntervalNanos;
+   private final long summaryIntervalNanos;
+   private final LongSupplier nanoClock;
+
+   private final LRUMap<Fingerprint, Bucket> buckets = new LRUMap<>(MAX_FINGERPRINTS);
+
+   /** suppressed counts of evicted buckets not yet summarized */
+   private final Map<Fingerprint, Long> evictedSuppressedCounts = new LinkedHashMap<>();
+   /** suppressed count of evicted buckets that did not fit into {@link #evictedSuppressedCounts} */
+   private long otherSuppressedCount;
+   private long suppressedTotal;
+   private volatile long nextSummaryNanos;
+
+   /**
+    * @param burst number of statuses with the same fingerprint that are logged before suppression starts
+    * @param refillIntervalMS interval after which one more status with the same fingerprint is logged
+    * @param summaryIntervalMS minimum interval between summaries of suppressed statuses
+    */
+   LogRateLimiter(final String pluginId, final int burst, final long refillIntervalMS, final long summaryIntervalMS,
+         final LongSupplier nanoClock) {
+      this.pluginId = pluginId;
+      this.burst = burst;
+      refillIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refillIntervalMS);
+      summaryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(summaryIntervalMS);
+      this.nanoClock = nanoClock;
+      nextSummaryNanos = nanoClock.getAsLong() + summaryIntervalNanos;
+   }
+
+   synchronized long getSuppressedCount() {
+      return suppressedTotal;
+   }
+
+   /**
+    * @param force if true, the summaries are returned regardless of the summary interval
+    *
+    * @return summary statuses of the statuses suppressed since the last summary, an empty list if the summary interval did not yet
+    *         elapse
+    */
+   List<IStatus> pollSummaries(final boolean force) {
+      final long now = nanoClock.getAsLong();
+      if (!force && now - nextSummaryNanos < 0)
+         return List.of();
+
+      final var summaries = new ArrayList<IStatus>();
+      synchronized (this) {
+         nextSummaryNanos = now + summaryIntervalNanos;
+         buckets.forEach((fingerprint, bucket) -> {
+            if (bucket.suppressedCount > 0) {
+               evictedSuppressedCounts.merge(fingerprint, bucket.suppressedCount, Long::sum);
+               bucket.suppressedCount = 0;
+            }
+         });
+         evictedSuppressedCounts.forEach((fingerprint, suppressedCount) -> summaries.add(new Status(fingerprint.severity, pluginId,
+            NLS.bind("{0} similar log entries were suppressed: {1}", suppressedCount, Objects.toString(fingerprint.template,
+               fingerprint.exceptionType)))));
+         evictedSuppressedCounts.clear();
+         if (otherSuppressedCount > 0) {
+            summaries.add(new Status(IStatus.WARNING, pluginId, NLS.bind("{0} further log entries were suppressed.",
+               otherSuppressedCount)));
+            otherSuppressedCount = 0;
+         }
+      }
+      return summaries;
+   }
+
+   /**
+    * @param template the unformatted message of the status
+    *
+    * @return true if the status may be logged, false if it is suppressed
+    */
+   boolean tryAcquire(final IStatus status, final @Nullable String template) {
+      final var fingerprint = Fingerprint.of(status, template);
+      final long now = nanoClock.getAsLong();
+      synchronized (this) {
+         var bucket = buckets.get(fingerprint);
+         if (bucket == null) {
+            if (buckets.size() >= MAX_FINGERPRINTS) {
+               // the least recently used bucket is evicted by the put below, keep its suppressed count for the next summary
+               final var eldest = buckets.entrySet().iterator().next();
+               final long suppressedCount = eldest.getValue().suppressedCount;
+               if (suppressedCount > 0) {
+                  if (evictedSuppressedCounts.size() < MAX_FINGERPRINTS || evictedSuppressedCounts.containsKey(eldest.getKey())) {
+                     evictedSuppressedCounts.merge(eldest.getKey(), suppressedCount, Long::sum);
+                  } else {
+                     otherSuppressedCount += suppressedCount;
+                  }
+               }
+            }
+            bucket = new Bucket(burst, now);
+            buckets.put(fingerprint, bucket);
+         } else if (bucket.tokens < burst) {
+            final long refills = (now - bucket.lastRefillNanos) / refillIntervalNanos;
+            if (refills > 0) {
+               bucket.tokens = Math.min(burst, bucket.tokens + refills);
+               bucket.lastRefillNanos += refills * refillIntervalNanos;
+            }
+         }
+
+         if (bucket.tokens > 0) {
+            if (bucket.tokens == burst) {
+               // a full bucket does not accumulate further refills
+               bucket.lastRefillNanos = now;
+            }
+            bucket.tokens--;
+            return true;
+         }
+         bucket.suppressedCount++;
+         suppressedTotal++;
+         return false;
+      }
+   }
+}
@@ -0,0 +1,148 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * Pre-parsed message pattern with the same semantics as {@link NLS#bind(String, Object[])}, i.e. <code>{n}</code> placeholders,
+ * <code>''</code> for a single quote and text in single quotes taken literally.
+ * <p>
+ * The pattern is scanned once when the template is created, formatting only concatenates the literal segments and the arguments.
+ * Templates are cached per pattern.
+ *
+ * @author Sebastian Thomschke
+ */
+final class MessageTemplate {
+
+   static final int MAX_CACHED_TEMPLATES = 1024;
+
+   private static final Map<String, MessageTemplate> CACHE = new ConcurrentHashMap<>();
+
+   private static final String MISSING_ARGUMENT = "<missing argument>";
+
+   static MessageTemplate of(final String pattern) {
+      var template = CACHE.get(pattern);
+      if (template == null) {
+         template = new MessageTemplate(pattern);
+         if (CACHE.size() >= MAX_CACHED_TEMPLATES) {
+            // patterns are usually constants, so the cache only overflows if messages are built dynamically
+            CACHE.clear();
+         }
+         CACHE.put(pattern, template);
+      }
+      return template;
+   }
+
+   private final String pattern;
+
+   /** literals[i] precedes the argument with index argIndexes[i], the last literal follows the last argument */
+   private final String[] literals;
+   private final int[] argIndexes;
+   private final int literalsLength;
+
+   /** false if the pattern contains a non-numeric placeholder, formatting is then delegated to NLS which throws an exception */
+   private final boolean isValid;
+
+   private MessageTemplate(final String pattern) {
+      this.pattern = pattern;
+
+      final var literals = new ArrayList<String>();
+      final var argIndexes = new ArrayList<Integer>();
+      final var literal = new StringBuilder(pattern.length());
+      boolean isValid = true;
+
+      final int length = pattern.length();
+      parsing: for (int i = 0; i < length; i++) {
+         final char ch = pattern.charAt(i);
+         switch (ch) {
+            case '{': {
+               final int closingIndex = pattern.indexOf('}', i);
+               if (closingIndex == -1) {
+                  literal.append(ch);
+                  break;
+               }
+               final int argIndex;
+               try {
+                  argIndex = Integer.parseInt(pattern.substring(i + 1, closingIndex));
+               } catch (final NumberFormatException ex) {
+                  isValid = false;
+                  break parsing;
+               }
+               literals.add(literal.toString());
+               literal.setLength(0);
+               argIndexes.add(argIndex);
+               i = closingIndex;
+               break;
+            }
+            case '\'': {
+               final int nextIndex = i + 1;
+               if (nextIndex >= length) {
+                  literal.append(ch);
+                  break;
+               }
+               if (pattern.charAt(nextIndex) == '\'') {
+                  literal.append(ch);
+                  i++;
+                  break;
+               }
+               final int closingIndex = pattern.indexOf('\'', nextIndex);
+               if (closingIndex == -1) {
+                  literal.append(ch);
+                  break;
+               }
+               literal.append(pattern, nextIndex, closingIndex);
+               i = closingIndex;
+               break;
+            }
+            default:
+               literal.append(ch);
+         }
+      }
+      literals.add(literal.toString());
+
+      this.isValid = isValid;
+      this.literals = literals.toArray(String[]::new);
+      this.argIndexes = argIndexes.stream().mapToInt(Integer::intValue).toArray();
+      int literalsLength = 0;
+      for (final var l : this.literals) {
+         literalsLength += l.length();
+      }
+      this.literalsLength = literalsLength;
+   }
+
+   /**
+    * @return the formatted message, same as <code>NLS.bind(pattern, args)</code>
+    *
+    * @throws IllegalArgumentException if the pattern contains a non-numeric placeholder
+    */
+   String format(final @Nullable Object... args) {
+      if (!isValid)
+         return NLS.bind(pattern, args);
+
+      if (argIndexes.length == 0)
+         return literals[0];
+
+      final var sb = new StringBuilder(literalsLength + argIndexes.length * 16);
+      for (int i = 0; i < argIndexes.length; i++) {
+         sb.append(literals[i]);
+         final int argIndex = argIndexes[i];
+         if (argIndex < 0 || argIndex >= args.length) {
+            sb.append(MISSING_ARGUMENT);
+         } else {
+            sb.append(args[argIndex]);
+         }
+      }
+      sb.append(literals[argIndexes.length]);
+      return sb.toString();
+   }
+}
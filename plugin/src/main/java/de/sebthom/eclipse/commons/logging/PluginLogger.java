@@ -6,37 +6,90 @@
  */
 package de.sebthom.eclipse.commons.logging;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
 import org.eclipse.core.runtime.ILog;
 import org.eclipse.core.runtime.ILogListener;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.osgi.service.debug.DebugOptions;
+import org.eclipse.osgi.service.debug.DebugOptionsListener;
 import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 
 import de.sebthom.eclipse.commons.AbstractEclipsePlugin;
 import net.sf.jstuff.core.logging.Logger;
+import net.sf.jstuff.core.validation.Args;
 
 /**
  * @author Sebastian Thomschke
  */
 public class PluginLogger {
 
+   /**
+    * Behavior of asynchronous logging when the log buffer is full.
+    */
+   public enum OverflowPolicy {
+      /** the logging thread waits until the buffer has space */
+      BLOCK,
+      /** the status is dropped, the number of dropped statuses is logged once the buffer has space again */
+      DROP,
+      /**
+       * like {@link #DROP}, but already when the buffer is half full only every {@value AsyncLogWriter#SAMPLE_RATE}th status below
+       * {@link IStatus#ERROR} severity is accepted, to leave space for errors
+       */
+      SAMPLE
+   }
+
+   public static final int DEFAULT_ASYNC_BUFFER_SIZE = 1024;
+
+   /** default number of statuses with the same fingerprint that are logged before suppression starts */
+   public static final int DEFAULT_RATE_LIMIT_BURST = 10;
+   /** default interval after which one more status with the same fingerprint is logged */
+   public static final long DEFAULT_RATE_LIMIT_REFILL_INTERVAL_MS = 1_000;
+   /** minimum interval between summaries of suppressed statuses */
+   public static final long RATE_LIMIT_SUMMARY_INTERVAL_MS = 60_000;
+
+   public static final long DEFAULT_STRUCTURED_LOG_MAX_FILE_SIZE = 10 * 1024 * 1024;
+   public static final int DEFAULT_STRUCTURED_LOG_MAX_BACKUP_FILES = 3;
+   public static final String DEFAULT_STRUCTURED_LOG_FILE_NAME = "log.jsonl";
+
+   private static final long DEFAULT_FLUSH_TIMEOUT_MS = 5_000;
+
+   private final String pluginId;
    private final Logger fileLog;
    private final ILog uiLog;
    private StatusFactory statusFactory;
+   private volatile @Nullable AsyncLogWriter asyncWriter;
+   private volatile @Nullable LogRateLimiter rateLimiter;
+   private volatile @Nullable JsonLinesLogSink structuredLog;
+   private final AtomicLongArray severityCounters;
+
+   /** value of the <code>&lt;plugin-id&gt;/debug</code> option or null if not specified */
+   private volatile @Nullable Boolean debugOption;
+   private volatile boolean isDebugOptionsListenerRegistered;
 
    public PluginLogger(final AbstractEclipsePlugin plugin) {
-      fileLog = Logger.create(plugin.getPluginId());
+      pluginId = plugin.getPluginId();
+      fileLog = Logger.create(pluginId);
       uiLog = Platform.getLog(plugin.getBundle());
       statusFactory = plugin.getStatusFactory();
+      severityCounters = LogMetrics.getCounters(pluginId);
    }
 
    public PluginLogger(final Bundle bundle) {
-      fileLog = Logger.create(bundle.getSymbolicName());
+      pluginId = bundle.getSymbolicName();
+      fileLog = Logger.create(pluginId);
       uiLog = Platform.getLog(bundle);
       statusFactory = new StatusFactory(bundle);
+      severityCounters = LogMetrics.getCounters(pluginId);
    }
 
    public PluginLogger(final Plugin plugin) {
@@ -47,93 +100,444 @@ public void addLogListener(final ILogListener listener) {
       uiLog.addLogListener(listener);
    }
 
+   /**
+    * Logs the message if {@link #isDebugEnabled() debug logging is enabled}. Unlike the varargs variant, this call does not allocate
+    * if debug logging is disabled.
+    */
+   public void debug(final @Nullable String msg) {
+      if (isDebugEnabled()) {
+         fileLog.info(msg);
+      }
+   }
+
+   /**
+    * Formats and logs the message if {@link #isDebugEnabled() debug logging is enabled}. Unlike the varargs variant, this call does
+    * not allocate if debug logging is disabled.
+    */
+   public void debug(final @Nullable String msg, final @Nullable Object msgArg) {
+      if (isDebugEnabled()) {
+         fileLog.info(NLS.bind(msg, msgArg));
+      }
+   }
+
+   /**
+    * Formats and logs the message if {@link #isDebugEnabled() debug logging is enabled}. Unlike the varargs variant, this call does
+    * not allocate if debug logging is disabled.
+    */
+   public void debug(final @Nullable String msg, final @Nullable Object msgArg1, final @Nullable Object msgArg2) {
+      if (isDebugEnabled()) {
+         fileLog.info(NLS.bind(msg, msgArg1, msgArg2));
+      }
+   }
+
+   /**
+    * Formats and logs the message if {@link #isDebugEnabled() debug logging is enabled}.
+    */
    public void debug(final @Nullable String msg, final @Nullable Object... msgArgs) {
-      fileLog.info(NLS.bind(msg, msgArgs));
+      if (isDebugEnabled()) {
+         fileLog.info(NLS.bind(msg, msgArgs));
+      }
+   }
+
+   /**
+    * Logs the message if {@link #isDebugEnabled() debug logging is enabled}. The message is only computed in that case.
+    */
+   public void debug(final Supplier<@Nullable String> msg) {
+      if (isDebugEnabled()) {
+         fileLog.info(msg.get());
+      }
    }
 
    public void debug(final Throwable ex) {
-      fileLog.info(ex);
+      if (isDebugEnabled()) {
+         fileLog.info(ex);
+      }
    }
 
    public void debug(final Throwable ex, final @Nullable String msg, final @Nullable Object... msgArgs) {
-      fileLog.info(ex, NLS.bind(msg, msgArgs));
+      if (isDebugEnabled()) {
+         fileLog.info(ex, NLS.bind(msg, msgArgs));
+      }
+   }
+
+   /**
+    * Logs the exception with the message if {@link #isDebugEnabled() debug logging is enabled}. The message is only computed in that
+    * case.
+    */
+   public void debug(final Throwable ex, final Supplier<@Nullable String> msg) {
+      if (isDebugEnabled()) {
+         fileLog.info(ex, msg.get());
+      }
+   }
+
+   /**
+    * Switches back to synchronous logging after passing all enqueued statuses to the platform log.
+    */
+   public void disableAsync() {
+      final AsyncLogWriter asyncWriter;
+      synchronized (this) {
+         asyncWriter = this.asyncWriter;
+         this.asyncWriter = null;
+      }
+      stop(asyncWriter);
+   }
+
+   /**
+    * Logs all statuses, also repeated ones. Pending summaries of suppressed statuses are logged.
+    */
+   public void disableRateLimit() {
+      logSuppressedSummaries();
+      rateLimiter = null;
+   }
+
+   /**
+    * Stops writing to the structured log and closes the log file.
+    */
+   public synchronized void disableStructuredLog() {
+      final var structuredLog = this.structuredLog;
+      if (structuredLog == null)
+         return;
+      this.structuredLog = null;
+      try {
+         structuredLog.close();
+      } catch (final IOException ex) {
+         fileLog.error(ex);
+      }
+   }
+
+   /**
+    * @see #enableAsync(int, OverflowPolicy)
+    */
+   public void enableAsync() {
+      enableAsync(DEFAULT_ASYNC_BUFFER_SIZE, OverflowPolicy.DROP);
+   }
+
+   /**
+    * Passes logged statuses to the platform log and the structured log on a background thread, so the log listeners and the
+    * structured log, which may write to disk, are not executed on the logging thread, e.g. the UI thread.
+    * <p>
+    * The status objects are still created synchronously as they are returned by the logging methods. Debug messages are not
+    * affected.
+    *
+    * @param bufferSize maximum number of statuses waiting to be logged, rounded up to the next power of two
+    */
+   public void enableAsync(final int bufferSize, final OverflowPolicy overflowPolicy) {
+      Args.min("bufferSize", bufferSize, 1);
+      Args.notNull("overflowPolicy", overflowPolicy);
+
+      final AsyncLogWriter oldAsyncWriter;
+      synchronized (this) {
+         oldAsyncWriter = asyncWriter;
+         asyncWriter = new AsyncLogWriter(pluginId, this::writeNow, bufferSize, overflowPolicy);
+      }
+      stop(oldAsyncWriter);
+   }
+
+   /**
+    * @see #setRateLimit(int, long)
+    */
+   public void enableRateLimit() {
+      setRateLimit(DEFAULT_RATE_LIMIT_BURST, DEFAULT_RATE_LIMIT_REFILL_INTERVAL_MS);
+   }
+
+   /**
+    * Writes a structured log to {@value #DEFAULT_STRUCTURED_LOG_FILE_NAME} in the plugin's state location.
+    *
+    * @see #enableStructuredLog(Path, long, int)
+    */
+   public void enableStructuredLog() throws IOException {
+      enableStructuredLog(Platform.getStateLocation(getBundle()).append(DEFAULT_STRUCTURED_LOG_FILE_NAME).toFile().toPath(),
+         DEFAULT_STRUCTURED_LOG_MAX_FILE_SIZE, DEFAULT_STRUCTURED_LOG_MAX_BACKUP_FILES);
+   }
+
+   /**
+    * Additionally writes all logged statuses and {@link #logDuration(String, long) durations} as machine-readable JSON lines, i.e. one
+    * JSON object per line with the fields <code>timestamp</code>, <code>plugin</code>, <code>severity</code>, <code>thread</code>
+    * and <code>message</code>, <code>code</code>, <code>exception</code> or <code>operation</code>, <code>durationMs</code>.
+    * <p>
+    * Statuses suppressed by the rate limit are not written. In {@link #enableAsync() asynchronous mode} statuses are written on the
+    * background thread, durations are always written on the calling thread.
+    *
+    * @param maxFileSize size in bytes after which the file is rotated
+    * @param maxBackupFiles number of rotated files to keep
+    */
+   public synchronized void enableStructuredLog(final Path file, final long maxFileSize, final int maxBackupFiles) throws IOException {
+      Args.notNull("file", file);
+      Args.min("maxFileSize", maxFileSize, 1);
+      Args.min("maxBackupFiles", maxBackupFiles, 0);
+
+      disableStructuredLog();
+      structuredLog = new JsonLinesLogSink(file, maxFileSize, maxBackupFiles);
    }
 
    public IStatus error(final @Nullable Object msg) {
       final var status = statusFactory.createError(msg == null ? null : msg.toString());
-      uiLog.log(status);
+      write(status);
       return status;
    }
 
    public IStatus error(final @Nullable String msg, final @Nullable Object... msgArgs) {
       final var status = statusFactory.createError(msg, msgArgs);
-      uiLog.log(status);
+      write(status, msg);
       return status;
    }
 
    public IStatus error(final Throwable ex) {
       final var status = statusFactory.createError(ex);
-      uiLog.log(status);
+      write(status);
       return status;
    }
 
    public IStatus error(final @Nullable Throwable ex, final @Nullable String msg, final @Nullable Object... msgArgs) {
       final var status = statusFactory.createError(ex, msg, msgArgs);
-      uiLog.log(status);
+      write(status, msg);
       return status;
    }
 
+   /**
+    * Waits until all statuses logged asynchronously before this call were passed to the platform log.
+    *
+    * @return false if the timeout elapsed before
+    */
+   public boolean flush(final long timeoutMS) {
+      final var asyncWriter = this.asyncWriter;
+      return asyncWriter == null || asyncWriter.flush(timeoutMS);
+   }
+
    public Bundle getBundle() {
       return uiLog.getBundle();
    }
 
+   /**
+    * @return the number of statuses dropped in asynchronous mode because of buffer overflows
+    */
+   public long getDroppedCount() {
+      final var asyncWriter = this.asyncWriter;
+      return asyncWriter == null ? 0 : asyncWriter.getDroppedCount();
+   }
+
+   /**
+    * @return the number of statuses suppressed by the rate limit
+    */
+   public long getSuppressedCount() {
+      final var rateLimiter = this.rateLimiter;
+      return rateLimiter == null ? 0 : rateLimiter.getSuppressedCount();
+   }
+
    public IStatus info(final @Nullable Object msg) {
       final var status = statusFactory.createInfo(msg == null ? null : msg.toString());
-      uiLog.log(status);
+      write(status);
       return status;
    }
 
    public IStatus info(final @Nullable String msg, final @Nullable Object... msgArgs) {
       final var status = statusFactory.createInfo(msg, msgArgs);
-      uiLog.log(status);
+      write(status, msg);
       return status;
    }
 
    public IStatus info(final Throwable ex, final @Nullable String msg, final @Nullable Object... msgArgs) {
       final var status = statusFactory.createInfo(ex, msg, msgArgs);
-      uiLog.log(status);
+      write(status, msg);
       return status;
    }
 
+   public boolean isAsync() {
+      return asyncWriter != null;
+   }
+
+   /**
+    * Debug messages are logged if the underlying file logger has the info level enabled. If the platform runs in debug mode, the
+    * <code>&lt;plugin-id&gt;/debug</code> option, e.g. specified in an <code>.options</code> file, can switch debug logging on or off.
+    * <p>
+    * The option is tracked via a {@link DebugOptionsListener}, so this check does not allocate.
+    */
+   public boolean isDebugEnabled() {
+      if (!isDebugOptionsListenerRegistered) {
+         registerDebugOptionsListener();
+      }
+      final var debugOption = this.debugOption;
+      return (debugOption == null || debugOption) && fileLog.isInfoEnabled();
+   }
+
    public void log(final IStatus status) {
-      uiLog.log(status);
+      write(status);
+   }
+
+   /**
+    * Records the duration of an operation in the structured log, if enabled, and as a debug message.
+    *
+    * @see #enableStructuredLog(Path, long, int)
+    */
+   public void logDuration(final String operation, final long durationMS) {
+      // checked here, as passing the duration to debug() would box it even if debug logging is disabled
+      if (isDebugEnabled()) {
+         debug("{0} took {1} ms", operation, durationMS);
+      }
+
+      final var structuredLog = this.structuredLog;
+      if (structuredLog != null) {
+         try {
+            structuredLog.writeDuration(System.currentTimeMillis(), pluginId, Thread.currentThread().getName(), operation,
+               durationMS);
+         } catch (final IOException ex) {
+            onStructuredLogFailed(structuredLog, ex);
+         }
+      }
+   }
+
+   /**
+    * Logs summaries of the statuses suppressed by the rate limit since the last summary. Summaries are otherwise logged at most
+    * every {@value #RATE_LIMIT_SUMMARY_INTERVAL_MS} ms when further statuses are logged.
+    */
+   public void logSuppressedSummaries() {
+      final var rateLimiter = this.rateLimiter;
+      if (rateLimiter != null) {
+         for (final var summary : rateLimiter.pollSummaries(true)) {
+            writeUnlimited(summary);
+         }
+      }
+   }
+
+   private void onStructuredLogFailed(final JsonLinesLogSink structuredLog, final IOException ex) {
+      synchronized (this) {
+         if (this.structuredLog != structuredLog)
+            return;
+         disableStructuredLog();
+      }
+      writeUnlimited(statusFactory.createError(ex, "Writing structured log {0} failed. Structured logging is disabled.",
+         structuredLog.getFile()));
+   }
+
+   private void registerDebugOptionsListener() {
+      final var ctx = getBundle().getBundleContext();
+      if (ctx == null) // bundle not started yet
+         return;
+
+      synchronized (this) {
+         if (isDebugOptionsListenerRegistered)
+            return;
+         try {
+            // the listener is unregistered automatically when the bundle stops
+            final DebugOptionsListener listener = options -> setDebugOption(options.getOption(pluginId + "/debug"));
+            ctx.registerService(DebugOptionsListener.class, listener, FrameworkUtil.asDictionary(Map.of(
+               DebugOptions.LISTENER_SYMBOLICNAME, pluginId)));
+         } catch (final IllegalStateException ex) {
+            // bundle context no longer valid
+            fileLog.debug(ex);
+         }
+         isDebugOptionsListenerRegistered = true;
+      }
    }
 
    public void removeLogListener(final ILogListener listener) {
       uiLog.removeLogListener(listener);
    }
 
+   /**
+    * @param debugOption value of the <code>&lt;plugin-id&gt;/debug</code> option or null if not specified
+    */
+   void setDebugOption(final @Nullable String debugOption) {
+      this.debugOption = debugOption == null ? null : Boolean.valueOf(debugOption.trim());
+   }
+
+   /**
+    * Limits how often statuses with the same fingerprint, i.e. the same severity, message template, exception type and top stack
+    * frame of the exception, are logged, so that an error occurring in a loop does not flood the log. Uses a token bucket per
+    * fingerprint: up to <code>burst</code> statuses are logged at once, afterwards one status per <code>refillIntervalMS</code>.
+    * Suppressed statuses are counted and summarized periodically.
+    * <p>
+    * Disabled by default, {@link #enableRateLimit()} uses a burst of {@value #DEFAULT_RATE_LIMIT_BURST} and a refill interval of
+    * {@value #DEFAULT_RATE_LIMIT_REFILL_INTERVAL_MS} ms.
+    */
+   public void setRateLimit(final int burst, final long refillIntervalMS) {
+      Args.min("burst", burst, 1);
+      Args.min("refillIntervalMS", refillIntervalMS, 1);
+      logSuppressedSummaries();
+      rateLimiter = new LogRateLimiter(pluginId, burst, refillIntervalMS, RATE_LIMIT_SUMMARY_INTERVAL_MS, System::nanoTime);
+   }
+
+   /**
+    * Stops the given writer outside of this logger's monitor, because the writer thread may need it to disable a failing structured
+    * log.
+    */
+   private static void stop(final @Nullable AsyncLogWriter asyncWriter) {
+      if (asyncWriter == null)
+         return;
+      try {
+         asyncWriter.stop(DEFAULT_FLUSH_TIMEOUT_MS);
+      } catch (final InterruptedException ex) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
    public IStatus warn(final @Nullable Object msg) {
       final var status = statusFactory.createWarning(msg == null ? null : msg.toString());
-      uiLog.log(status);
+      write(status);
       return status;
    }
 
    public IStatus warn(final @Nullable String msg, final @Nullable Object... msgArgs) {
       final var status = statusFactory.createWarning(msg, msgArgs);
-      uiLog.log(status);
+      write(status, msg);
       return status;
    }
 
    public IStatus warn(final Throwable ex) {
       final var status = statusFactory.createWarning(ex);
-      uiLog.log(status);
+      write(status);
       return status;
    }
 
    public IStatus warn(final Throwable ex, final @Nullable String msg, final @Nullable Object... msgArgs) {
       final var status = statusFactory.createWarning(ex, msg, msgArgs);
-      uiLog.log(status);
+      write(status, msg);
       return status;
    }
+
+   private void write(final IStatus status) {
+      write(status, status.getMessage());
+   }
+
+   /**
+    * @param template the unformatted message of the status, used to detect repeatedly logged statuses
+    */
+   private void write(final IStatus status, final @Nullable String template) {
+      LogMetrics.increment(severityCounters, status.getSeverity());
+
+      final var rateLimiter = this.rateLimiter;
+      if (rateLimiter != null) {
+         for (final var summary : rateLimiter.pollSummaries(false)) {
+            writeUnlimited(summary);
+         }
+         if (!rateLimiter.tryAcquire(status, template))
+            return;
+      }
+      writeUnlimited(status);
+   }
+
+   /**
+    * Writes the status to the structured log, if enabled, and the platform log.
+    *
+    * @param timestamp time in milliseconds when the status was logged
+    * @param threadName name of the thread that logged the status
+    */
+   private void writeNow(final IStatus status, final long timestamp, final String threadName) {
+      final var structuredLog = this.structuredLog;
+      if (structuredLog != null) {
+         try {
+            structuredLog.writeStatus(timestamp, pluginId, threadName, status);
+         } catch (final IOException ex) {
+            onStructuredLogFailed(structuredLog, ex);
+         }
+      }
+      uiLog.log(status);
+   }
+
+   private void writeUnlimited(final IStatus status) {
+      final var asyncWriter = this.asyncWriter;
+      if (asyncWriter == null || !asyncWriter.offer(status)) {
+         writeNow(status, System.currentTimeMillis(), Thread.currentThread().getName());
+      }
+   }
 }
@@ -6,23 +6,36 @@
  */
 package de.sebthom.eclipse.commons.logging;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.annotation.Nullable;
-import org.eclipse.osgi.util.NLS;
 import org.osgi.framework.Bundle;
 
 import de.sebthom.eclipse.commons.AbstractEclipsePlugin;
 import net.sf.jstuff.core.Strings;
 
 /**
+ * Message patterns are pre-parsed once and cached, see {@link MessageTemplate}. Statuses without arguments and exception are
+ * immutable and therefore shared per severity and message.
+ *
  * @author Sebastian Thomschke
  */
 public class StatusFactory {
 
+   static final int MAX_SHARED_STATUSES_PER_SEVERITY = 256;
+
    private final String pluginId;
 
+   /** shared statuses by message, indexed by {@link #indexOfSeverity(int)} */
+   private final List<Map<String, IStatus>> sharedStatuses = List.of( //
+      new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+      new ConcurrentHashMap<>());
+
    public StatusFactory(final AbstractEclipsePlugin plugin) {
       pluginId = plugin.getPluginId();
    }
@@ -61,7 +74,7 @@ public IStatus createInfo(final Throwable ex, final @Nullable String msg, final
 
    public IStatus createStatus(final int severity, final @Nullable String msg, final @Nullable Object... msgArgs) {
       if (msgArgs.length == 0)
-         return new Status(severity, pluginId, msg);
+         return getSharedStatus(severity, msg);
       return new Status(severity, pluginId, interpolateMessage(msg, msgArgs));
    }
 
@@ -93,9 +106,41 @@ public IStatus createWarning(final Throwable ex, final @Nullable String msg, fin
       return createStatus(IStatus.WARNING, ex, msg, msgArgs);
    }
 
+   private IStatus getSharedStatus(final int severity, final @Nullable String msg) {
+      final int severityIndex = indexOfSeverity(severity);
+      if (msg == null || severityIndex < 0)
+         return new Status(severity, pluginId, msg);
+
+      final var statuses = sharedStatuses.get(severityIndex);
+      var status = statuses.get(msg);
+      if (status == null) {
+         status = new Status(severity, pluginId, msg);
+         if (statuses.size() < MAX_SHARED_STATUSES_PER_SEVERITY) {
+            final var existing = statuses.putIfAbsent(msg, status);
+            if (existing != null)
+               return existing;
+         }
+      }
+      return status;
+   }
+
+   /**
+    * @return the index of the given severity in {@link #sharedStatuses} or -1 if not a single severity
+    */
+   private static int indexOfSeverity(final int severity) {
+      return switch (severity) {
+         case IStatus.OK -> 0;
+         case IStatus.INFO -> 1;
+         case IStatus.WARNING -> 2;
+         case IStatus.ERROR -> 3;
+         case IStatus.CANCEL -> 4;
+         default -> -1;
+      };
+   }
+
    private @Nullable String interpolateMessage(final @Nullable String msg, final @Nullable Object... msgArgs) {
-      if (msgArgs.length == 0 || Strings.isEmpty(msg))
+      if (msgArgs.length == 0 || msg == null || msg.isEmpty())
          return msg;
-      return NLS.bind(msg, msgArgs);
+      return MessageTemplate.of(msg).format(msgArgs);
    }
 }
@@ -0,0 +1,143 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.jdt.annotation.Nullable;
+
+import net.sf.jstuff.core.validation.Args;
+
+/**
+ * Collects nature and builder changes of a project and applies them with a single {@link IProject#setDescription} call inside one
+ * workspace operation, so only one description write and one resource change notification happen regardless of the number of
+ * changes.
+ *
+ * <pre>
+ * Projects.editDescription(project) //
+ *    .addNature(natureId) //
+ *    .addBuilder(builderId) //
+ *    .removeBuilder(oldBuilderId) //
+ *    .apply(monitor);
+ * </pre>
+ *
+ * If the same id is added and removed, the last call wins.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class ProjectDescriptionEditor {
+
+   private final IProject project;
+   private final Set<String> buildersToAdd = new LinkedHashSet<>();
+   private final Set<String> buildersToRemove = new LinkedHashSet<>();
+   private final Set<String> naturesToAdd = new LinkedHashSet<>();
+   private final Set<String> naturesToRemove = new LinkedHashSet<>();
+
+   ProjectDescriptionEditor(final IProject project) {
+      this.project = project;
+   }
+
+   public ProjectDescriptionEditor addBuilder(final String builderId) {
+      Args.notEmpty("builderId", builderId);
+      buildersToRemove.remove(builderId);
+      buildersToAdd.add(builderId);
+      return this;
+   }
+
+   public ProjectDescriptionEditor addNature(final String natureId) {
+      Args.notEmpty("natureId", natureId);
+      naturesToRemove.remove(natureId);
+      naturesToAdd.add(natureId);
+      return this;
+   }
+
+   /**
+    * Applies the collected changes. Does not modify the project if the changes have no effect.
+    *
+    * @throws CoreException if natures are added and the resulting nature set is invalid or the description could not be written
+    */
+   public void apply(final @Nullable IProgressMonitor monitor) throws CoreException {
+      if (buildersToAdd.isEmpty() && buildersToRemove.isEmpty() && naturesToAdd.isEmpty() && naturesToRemove.isEmpty())
+         return;
+
+      final IWorkspace workspace = project.getWorkspace();
+      workspace.run(m -> {
+         final var projectCfg = project.getDescription();
+         boolean isModified = false;
+
+         final var oldNatureIds = Arrays.asList(projectCfg.getNatureIds());
+         final var natureIds = new LinkedHashSet<>(oldNatureIds);
+         natureIds.removeAll(naturesToRemove);
+         natureIds.addAll(naturesToAdd);
+         if (natureIds.size() != oldNatureIds.size() || !natureIds.containsAll(oldNatureIds)) {
+            final var newNatureIds = natureIds.toArray(String[]::new);
+            // only validate if natures are added, so natures can still be removed from projects whose nature set is already invalid,
+            // e.g. because it references natures of uninstalled plug-ins
+            if (!oldNatureIds.containsAll(natureIds)) {
+               final var status = workspace.validateNatureSet(newNatureIds);
+               if (status.getCode() != IStatus.OK)
+                  throw new CoreException(status);
+            }
+            projectCfg.setNatureIds(newNatureIds);
+            isModified = true;
+         }
+
+         final var oldBuildSpec = projectCfg.getBuildSpec();
+         final var buildSpec = new ArrayList<ICommand>(oldBuildSpec.length + buildersToAdd.size());
+         final var builderIds = new LinkedHashSet<String>();
+         for (final var builder : oldBuildSpec) {
+            if (buildersToRemove.contains(builder.getBuilderName())) {
+               isModified = true;
+            } else {
+               buildSpec.add(builder);
+               builderIds.add(builder.getBuilderName());
+            }
+         }
+         for (final var builderId : buildersToAdd) {
+            if (builderIds.add(builderId)) {
+               final var builder = projectCfg.newCommand();
+               builder.setBuilderName(builderId);
+               buildSpec.add(builder);
+               isModified = true;
+            }
+         }
+         if (isModified) {
+            projectCfg.setBuildSpec(buildSpec.toArray(ICommand[]::new));
+            project.setDescription(projectCfg, m);
+            // resource change events are deferred until the outermost workspace operation ends
+            ProjectMetadataIndex.INSTANCE.evict(project);
+         }
+      }, workspace.getRuleFactory().modifyRule(project), IWorkspace.AVOID_UPDATE, monitor);
+   }
+
+   public IProject getProject() {
+      return project;
+   }
+
+   public ProjectDescriptionEditor removeBuilder(final String builderId) {
+      Args.notEmpty("builderId", builderId);
+      buildersToAdd.remove(builderId);
+      buildersToRemove.add(builderId);
+      return this;
+   }
+
+   public ProjectDescriptionEditor removeNature(final String natureId) {
+      Args.notEmpty("natureId", natureId);
+      naturesToAdd.remove(natureId);
+      naturesToRemove.add(natureId);
+      return this;
+   }
+}
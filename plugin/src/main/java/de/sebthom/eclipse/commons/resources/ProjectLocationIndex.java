@@ -0,0 +1,235 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.core.filesystem.EFS;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+
+/**
+ * Prefix trie of the project locations for O(path-depth) lookups of the project containing a location, in contrast to
+ * {@link org.eclipse.core.resources.IWorkspaceRoot#findContainersForLocationURI(URI)} which checks all projects and linked
+ * resources.
+ * <p>
+ * The trie is immutable and rebuilt lazily after projects were added, removed, opened, closed or moved, as reported via an
+ * {@link IResourceChangeListener}. Because resource change events are only sent when the outermost workspace operation ends, inside
+ * a workspace operation a location that is not found in the trie or whose project no longer exists or was moved is looked up in a
+ * trie built from the current project locations. The listener is unregistered when this plugin stops.
+ *
+ * @author Sebastian Thomschke
+ */
+final class ProjectLocationIndex implements IResourceChangeListener {
+
+   static final ProjectLocationIndex INSTANCE = new ProjectLocationIndex();
+
+   private static final int RELEVANT_PROJECT_CHANGES = IResourceDelta.OPEN | IResourceDelta.DESCRIPTION | IResourceDelta.REPLACED
+         | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+   private static final boolean IS_LOCAL_FILE_SYSTEM_CASE_SENSITIVE = EFS.getLocalFileSystem().isCaseSensitive();
+
+   private static final class Node {
+      final Map<String, Node> children = new HashMap<>(4);
+      @Nullable IProject project;
+   }
+
+   private volatile @Nullable Node root;
+   /** incremented on each invalidation, so a trie built from outdated project locations is not published */
+   private volatile int generation;
+   private volatile boolean isListening;
+
+   private ProjectLocationIndex() {
+   }
+
+   private Node build() {
+      final var newRoot = new Node();
+      for (final var project : Resources.getWorkspaceRoot().getProjects()) {
+         final var location = project.getLocationURI();
+         if (location == null) {
+            continue;
+         }
+         var node = newRoot;
+         for (final var key : toKeys(location)) {
+            node = node.children.computeIfAbsent(key, k -> new Node());
+         }
+         node.project = project;
+      }
+      return newRoot;
+   }
+
+   /**
+    * @return the project with the longest location that is equal to or a parent of the given location
+    */
+   @Nullable IProject findProject(final URI location) {
+      final var keys = toKeys(location);
+      final var project = findProject(getRoot(), keys);
+      if (isInWorkspaceOperation() && (project == null || !isLocatedIn(keys, project)))
+         return findProject(build(), keys);
+      return project;
+   }
+
+   private static @Nullable IProject findProject(final Node root, final String[] keys) {
+      IProject project = null;
+      var node = root;
+      for (final var key : keys) {
+         node = node.children.get(key);
+         if (node == null) {
+            break;
+         }
+         if (node.project != null) {
+            project = node.project;
+         }
+      }
+      return project;
+   }
+
+   /**
+    * @return the containing projects of all given locations that are located in a project
+    */
+   Map<URI, IProject> findProjects(final Iterable<URI> locations) {
+      final var root = getRoot();
+      final boolean isInWorkspaceOperation = isInWorkspaceOperation();
+      Node currentRoot = null;
+      final var result = new HashMap<URI, IProject>();
+      for (final var location : locations) {
+         final var keys = toKeys(location);
+         var project = findProject(root, keys);
+         if (isInWorkspaceOperation && (project == null || !isLocatedIn(keys, project))) {
+            if (currentRoot == null) {
+               currentRoot = build();
+            }
+            project = findProject(currentRoot, keys);
+         }
+         if (project != null) {
+            result.put(location, project);
+         }
+      }
+      return result;
+   }
+
+   private Node getRoot() {
+      var root = this.root;
+      if (root != null)
+         return root;
+
+      if (!isListening) {
+         synchronized (this) {
+            if (!isListening) {
+               Resources.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+               isListening = true;
+               try {
+                  EclipseCommonsPlugin.get().addStopListener(this::stopListening);
+               } catch (final IllegalStateException ex) {
+                  // plugin not active, e.g. when used outside of an OSGi runtime
+               }
+            }
+         }
+      }
+
+      final int generation = this.generation;
+      root = build();
+      synchronized (this) {
+         if (generation == this.generation) {
+            this.root = root;
+         }
+      }
+      return root;
+   }
+
+   private synchronized void invalidate() {
+      generation++;
+      root = null;
+   }
+
+   /**
+    * @return true if the current thread runs inside a workspace operation, whose project changes are not reported to the listener
+    *         yet
+    */
+   private static boolean isInWorkspaceOperation() {
+      return Resources.getWorkspace().isTreeLocked() || Job.getJobManager().currentRule() != null;
+   }
+
+   /**
+    * @return true if the project still exists and the given location keys start with the keys of the project's current location
+    */
+   private static boolean isLocatedIn(final String[] keys, final IProject project) {
+      if (!project.exists())
+         return false;
+      final var projectLocation = project.getLocationURI();
+      if (projectLocation == null)
+         return false;
+      final var projectKeys = toKeys(projectLocation);
+      return projectKeys.length <= keys.length && Arrays.equals(projectKeys, 0, projectKeys.length, keys, 0, projectKeys.length);
+   }
+
+   @Override
+   public void resourceChanged(final IResourceChangeEvent event) {
+      final var delta = event.getDelta();
+      if (delta == null)
+         return;
+
+      for (final var projectDelta : delta.getAffectedChildren()) {
+         if (projectDelta.getKind() != IResourceDelta.CHANGED || (projectDelta.getFlags() & RELEVANT_PROJECT_CHANGES) != 0) {
+            invalidate();
+            return;
+         }
+      }
+   }
+
+   private void stopListening() {
+      synchronized (this) {
+         if (!isListening)
+            return;
+         isListening = false;
+         invalidate();
+      }
+      try {
+         Resources.getWorkspace().removeResourceChangeListener(this);
+      } catch (final IllegalStateException ex) {
+         EclipseCommonsPlugin.log().debug(ex);
+      }
+   }
+
+   /**
+    * @return the trie keys of the given location, i.e. the scheme and authority followed by the path segments
+    */
+   private static String[] toKeys(final URI location) {
+      final var uri = location.normalize();
+      final var uriScheme = uri.getScheme();
+      final var scheme = uriScheme == null ? "" : uriScheme.toLowerCase(Locale.ROOT);
+      String path = uri.isOpaque() ? uri.getSchemeSpecificPart() : uri.getPath();
+      if (path == null) {
+         path = "";
+      }
+      if ("file".equals(scheme) && !IS_LOCAL_FILE_SYSTEM_CASE_SENSITIVE) {
+         path = path.toLowerCase(Locale.ROOT);
+      }
+
+      final var segments = path.split("/");
+      final var keys = new String[segments.length + 1];
+      final var authority = uri.getAuthority();
+      keys[0] = scheme + "://" + (authority == null ? "" : authority);
+      int count = 1;
+      for (final var segment : segments) {
+         if (!segment.isEmpty()) {
+            keys[count++] = segment;
+         }
+      }
+      return count == keys.length ? keys : Arrays.copyOf(keys, count);
+   }
+}
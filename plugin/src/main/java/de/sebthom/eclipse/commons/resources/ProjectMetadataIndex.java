@@ -0,0 +1,168 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+
+/**
+ * Index of the nature and builder ids of open projects. The ids are read once per project via {@link IProject#getDescription()},
+ * which clones the whole description, and evicted via an {@link IResourceChangeListener} when the project is closed, deleted, moved
+ * or its <code>.project</code> file changes. The listener is unregistered when this plugin stops.
+ * <p>
+ * Because resource change events are only sent when the outermost workspace operation ends, the index is bypassed while the resource
+ * tree is locked or the current thread runs inside a workspace operation, and {@link ProjectDescriptionEditor} evicts the project
+ * as soon as it has written the description.
+ *
+ * @author Sebastian Thomschke
+ */
+final class ProjectMetadataIndex implements IResourceChangeListener {
+
+   static final ProjectMetadataIndex INSTANCE = new ProjectMetadataIndex();
+
+   private static final IPath DESCRIPTION_FILE_PATH = new Path(IProjectDescription.DESCRIPTION_FILE_NAME);
+
+   private static final int RELEVANT_PROJECT_CHANGES = IResourceDelta.OPEN | IResourceDelta.DESCRIPTION | IResourceDelta.REPLACED
+         | IResourceDelta.MOVED_FROM | IResourceDelta.MOVED_TO;
+
+   record Entry(Set<String> natureIds, Set<String> builderIds) {
+   }
+
+   private final Map<IProject, Entry> entries = new ConcurrentHashMap<>();
+
+   /** incremented on each eviction, so descriptions that were read while an eviction happened are not stored */
+   private final AtomicLong evictionCount = new AtomicLong();
+   private volatile boolean isListening;
+
+   private ProjectMetadataIndex() {
+   }
+
+   private void ensureListening() {
+      if (isListening)
+         return;
+
+      synchronized (this) {
+         if (isListening)
+            return;
+         isListening = true;
+      }
+      Resources.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE | IResourceChangeEvent.PRE_CLOSE
+            | IResourceChangeEvent.PRE_DELETE);
+      try {
+         EclipseCommonsPlugin.get().addStopListener(this::stopListening);
+      } catch (final IllegalStateException ex) {
+         // plugin not active, e.g. when used outside of an OSGi runtime
+      }
+   }
+
+   /**
+    * Evicts the entry of the given project, e.g. after its description was changed inside a workspace operation.
+    */
+   void evict(final IResource project) {
+      evictionCount.incrementAndGet();
+      entries.remove(project);
+   }
+
+   /**
+    * @param project an open project
+    *
+    * @throws CoreException if the project description cannot be read
+    */
+   Entry get(final IProject project) throws CoreException {
+      final var workspace = project.getWorkspace();
+      if (workspace.isTreeLocked() || Job.getJobManager().currentRule() != null)
+         // the description may have been changed by the running operation without a resource change event being sent yet
+         return load(project);
+
+      ensureListening();
+
+      final var entry = entries.get(project);
+      if (entry != null)
+         return entry;
+
+      final long evictionCountBeforeLoad = evictionCount.get();
+      final var loaded = load(project);
+      final var existing = entries.putIfAbsent(project, loaded);
+      if (existing != null)
+         return existing;
+
+      // an eviction during the load may refer to a description change the loaded entry does not reflect yet
+      if (evictionCount.get() != evictionCountBeforeLoad) {
+         entries.remove(project, loaded);
+      }
+      return loaded;
+   }
+
+   private static Entry load(final IProject project) throws CoreException {
+      final var desc = project.getDescription();
+      final var builderIds = new HashSet<String>();
+      for (final var builder : desc.getBuildSpec()) {
+         final var builderId = builder.getBuilderName();
+         if (builderId != null) {
+            builderIds.add(builderId);
+         }
+      }
+      return new Entry(Set.copyOf(Arrays.asList(desc.getNatureIds())), Set.copyOf(builderIds));
+   }
+
+   @Override
+   public void resourceChanged(final IResourceChangeEvent event) {
+      switch (event.getType()) {
+         case IResourceChangeEvent.PRE_CLOSE, IResourceChangeEvent.PRE_DELETE:
+            if (event.getResource() instanceof final IProject project) {
+               evict(project);
+            }
+            break;
+
+         case IResourceChangeEvent.POST_CHANGE:
+            final var delta = event.getDelta();
+            if (delta == null)
+               return;
+
+            for (final var projectDelta : delta.getAffectedChildren()) {
+               if (projectDelta.getKind() != IResourceDelta.CHANGED //
+                     || (projectDelta.getFlags() & RELEVANT_PROJECT_CHANGES) != 0 //
+                     || projectDelta.findMember(DESCRIPTION_FILE_PATH) != null) {
+                  evict(projectDelta.getResource());
+               }
+            }
+            break;
+      }
+   }
+
+   private void stopListening() {
+      synchronized (this) {
+         if (!isListening)
+            return;
+         isListening = false;
+      }
+      try {
+         Resources.getWorkspace().removeResourceChangeListener(this);
+      } catch (final IllegalStateException ex) {
+         EclipseCommonsPlugin.log().debug(ex);
+      }
+      evictionCount.incrementAndGet();
+      entries.clear();
+   }
+}
@@ -8,9 +8,11 @@
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
+import org.eclipse.core.filesystem.URIUtil;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceRoot;
@@ -18,13 +20,10 @@
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
 import org.eclipse.jdt.annotation.Nullable;
 
 import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
 import net.sf.jstuff.core.Strings;
-import net.sf.jstuff.core.collection.ArrayUtils;
-import net.sf.jstuff.core.validation.Args;
 
 /**
  * @author Sebastian Thomschke
@@ -43,30 +42,19 @@ public abstract class Projects {
 
    public static final void addBuilder(final IProject project, final String builderId, final @Nullable IProgressMonitor monitor)
          throws CoreException {
-      if (hasBuilder(project, builderId))
-         return;
-
-      final var projectCfg = project.getDescription();
-      final var builder = projectCfg.newCommand();
-      builder.setBuilderName(builderId);
-      projectCfg.setBuildSpec(ArrayUtils.add(projectCfg.getBuildSpec(), builder));
-      project.setDescription(projectCfg, monitor);
+      editDescription(project).addBuilder(builderId).apply(monitor);
    }
 
    public static void addNature(final IProject project, final String natureId, final @Nullable IProgressMonitor monitor)
          throws CoreException {
-      Args.notEmpty("natureId", natureId);
-
-      if (hasNature(project, natureId))
-         return;
+      editDescription(project).addNature(natureId).apply(monitor);
+   }
 
-      final var projectCfg = project.getDescription();
-      final var newNatureIds = ArrayUtils.add(projectCfg.getNatureIds(), natureId);
-      final var status = Resources.getWorkspace().validateNatureSet(newNatureIds);
-      if (status.getCode() != IStatus.OK)
-         throw new CoreException(status);
-      projectCfg.setNatureIds(newNatureIds);
-      project.setDescription(projectCfg, monitor);
+   /**
+    * @return an editor to apply multiple nature and builder changes with a single description update
+    */
+   public static ProjectDescriptionEditor editDescription(final IProject project) {
+      return new ProjectDescriptionEditor(project);
    }
 
    public static @Nullable IProject findOpenProjectWithNature(final @Nullable String projectName, final @Nullable String natureId) {
@@ -78,32 +66,40 @@ public static void addNature(final IProject project, final String natureId, fina
    }
 
    /**
-    * Finds the project containing a resource represented by the given resourcePath
+    * Finds the project containing a resource represented by the given resourcePath.
+    * <p>
+    * Project locations are looked up in an index, so the costs depend on the path depth and not on the number of projects. If
+    * projects are nested, the innermost project is returned.
     */
-   @SuppressWarnings("deprecation")
    public static @Nullable IProject findProjectOfResource(final @Nullable IPath resourcePath) {
       if (resourcePath == null)
          return null;
 
-      for (final var container : Resources.getWorkspaceRoot().findContainersForLocation(resourcePath)) {
-         if (container instanceof final IProject project)
-            return project;
-      }
-      return null;
+      return ProjectLocationIndex.INSTANCE.findProject(URIUtil.toURI(resourcePath));
    }
 
    /**
-    * Finds the project containing a resource represented by the given URI
+    * Finds the project containing a resource represented by the given URI.
+    * <p>
+    * Project locations are looked up in an index, so the costs depend on the path depth and not on the number of projects. If
+    * projects are nested, the innermost project is returned.
     */
    public static @Nullable IProject findProjectOfResource(final @Nullable URI resourceURI) {
       if (resourceURI == null)
          return null;
 
-      for (final var container : Resources.getWorkspaceRoot().findContainersForLocationURI(resourceURI)) {
-         if (container instanceof final IProject project)
-            return project;
-      }
-      return null;
+      return ProjectLocationIndex.INSTANCE.findProject(resourceURI);
+   }
+
+   /**
+    * Finds the projects containing the resources represented by the given URIs.
+    *
+    * @return the containing project by URI, URIs not located in a project are omitted
+    *
+    * @see #findProjectOfResource(URI)
+    */
+   public static Map<URI, IProject> findProjectsOfResources(final Iterable<URI> resourceURIs) {
+      return ProjectLocationIndex.INSTANCE.findProjects(resourceURIs);
    }
 
    public static Stream<IProject> getOpenProjects() {
@@ -143,10 +139,16 @@ public static Stream<IProject> getProjects(final Predicate<IProject> filter) {
       return getProjects().filter(filter);
    }
 
+   /**
+    * The builder ids of open projects are cached until the project description changes.
+    */
    public static final boolean hasBuilder(final @Nullable IProject project, final String builderId) throws CoreException {
       if (project == null)
          return false;
 
+      if (project.isOpen())
+         return ProjectMetadataIndex.INSTANCE.get(project).builderIds().contains(builderId);
+
       for (final var builder : project.getDescription().getBuildSpec()) {
          if (builderId.equals(builder.getBuilderName()))
             return true;
@@ -154,6 +156,9 @@ public static final boolean hasBuilder(final @Nullable IProject project, final S
       return false;
    }
 
+   /**
+    * The nature ids of open projects are cached until the project description changes.
+    */
    public static boolean hasNature(final @Nullable IProject project, final @Nullable String natureId) {
       if (project == null //
             || natureId == null || natureId.isBlank() //
@@ -163,7 +168,7 @@ public static boolean hasNature(final @Nullable IProject project, final @Nullabl
          return false;
 
       try {
-         return project.hasNature(natureId);
+         return ProjectMetadataIndex.INSTANCE.get(project).natureIds().contains(natureId);
       } catch (final CoreException ex) {
          EclipseCommonsPlugin.log().debug(ex);
          return false;
@@ -172,24 +177,11 @@ public static boolean hasNature(final @Nullable IProject project, final @Nullabl
 
    public static void removeBuilder(final IProject project, final String builderId, final @Nullable IProgressMonitor monitor)
          throws CoreException {
-      if (hasBuilder(project, builderId))
-         return;
-
-      final var projectCfg = project.getDescription();
-      projectCfg.setBuildSpec(ArrayUtils.filter(builder -> !builderId.equals(builder.getBuilderName()), projectCfg.getBuildSpec()));
-      project.setDescription(projectCfg, monitor);
+      editDescription(project).removeBuilder(builderId).apply(monitor);
    }
 
    public static void removeNature(final IProject project, final String natureId, final @Nullable IProgressMonitor monitor)
          throws CoreException {
-      Args.notEmpty("natureId", natureId);
-
-      if (!hasNature(project, natureId))
-         return;
-
-      final var projectCfg = project.getDescription();
-      final var newNatureIds = ArrayUtils.removeElement(projectCfg.getNatureIds(), natureId);
-      projectCfg.setNatureIds(newNatureIds);
-      project.setDescription(projectCfg, monitor);
+      editDescription(project).removeNature(natureId).apply(monitor);
    }
 }
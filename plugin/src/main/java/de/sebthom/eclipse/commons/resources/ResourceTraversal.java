@@ -0,0 +1,212 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+import net.sf.jstuff.core.functional.ThrowingFunction;
+import net.sf.jstuff.core.validation.Args;
+
+/**
+ * Parallel processing of the files of a workspace container.
+ * <p>
+ * The container is walked in the calling thread via an {@link org.eclipse.core.resources.IResourceProxyVisitor}, which does not
+ * create resource handles for filtered out resources. Matching files are processed on a {@link ForkJoinPool} and the results are
+ * passed back to the calling thread as soon as they are available.
+ *
+ * @author Sebastian Thomschke
+ */
+public abstract class ResourceTraversal {
+
+   /** default maximum number of files being processed or waiting for their results to be consumed */
+   public static final int DEFAULT_MAX_PENDING_FILES = 256;
+
+   private static final long POLL_INTERVAL_MS = 100;
+
+   private record FileResult<R>(IFile file, @Nullable R result, @Nullable Throwable error) {
+   }
+
+   /**
+    * @see #forEachFile(IContainer, Predicate, ThrowingFunction, Consumer, ISchedulingRule, ForkJoinPool, int, IProgressMonitor)
+    */
+   public static <R> void forEachFile(final IContainer root, final Predicate<IResourceProxy> fileFilter,
+         final ThrowingFunction<IFile, @Nullable R, Exception> processor, final Consumer<R> resultHandler,
+         final @Nullable IProgressMonitor monitor) throws CoreException {
+      forEachFile(root, fileFilter, processor, resultHandler, null, ForkJoinPool.commonPool(), DEFAULT_MAX_PENDING_FILES, monitor);
+   }
+
+   /**
+    * Processes all accessible files below the given container in parallel.
+    * <p>
+    * If more than <code>maxPendingFiles</code> files are being processed or have unconsumed results, the walk is paused until the
+    * calling thread consumed further results, so the memory footprint stays bounded regardless of the number of files.
+    *
+    * @param fileFilter selects the files to process, only invoked for files
+    * @param processor invoked concurrently for each selected file, must not modify resources as the processing threads do not own
+    *           the scheduling rule
+    * @param resultHandler invoked in the calling thread for each non-null result in completion order
+    * @param rule optional scheduling rule held by the calling thread during the traversal, e.g. the root container to prevent
+    *           concurrent modifications of its files
+    * @param maxPendingFiles maximum number of files being processed or waiting for their results to be consumed
+    *
+    * @throws CoreException if the walk failed or the processor threw an exception for a file
+    * @throws OperationCanceledException if the monitor was canceled
+    */
+   public static <R> void forEachFile(final IContainer root, final Predicate<IResourceProxy> fileFilter,
+         final ThrowingFunction<IFile, @Nullable R, Exception> processor, final Consumer<R> resultHandler,
+         final @Nullable ISchedulingRule rule, final ForkJoinPool pool, final int maxPendingFiles,
+         final @Nullable IProgressMonitor monitor) throws CoreException {
+      Args.min("maxPendingFiles", maxPendingFiles, 1);
+
+      final var subMonitor = SubMonitor.convert(monitor, "Processing files in " + root.getFullPath(), IProgressMonitor.UNKNOWN);
+      final var jobManager = Job.getJobManager();
+      if (rule != null) {
+         jobManager.beginRule(rule, subMonitor);
+      }
+      try {
+         new Traversal<>(processor, resultHandler, pool, maxPendingFiles, subMonitor).run(root, fileFilter);
+      } finally {
+         if (rule != null) {
+            jobManager.endRule(rule);
+         }
+      }
+   }
+
+   private static final class Traversal<R> {
+      final ThrowingFunction<IFile, @Nullable R, Exception> processor;
+      final Consumer<R> resultHandler;
+      final ForkJoinPool pool;
+      final SubMonitor monitor;
+
+      /** one permit per file being processed or waiting for its result to be consumed */
+      final Semaphore pendingFiles;
+      final LinkedBlockingQueue<FileResult<R>> completedFiles = new LinkedBlockingQueue<>();
+      final AtomicBoolean isAborted = new AtomicBoolean();
+      int submittedCount;
+      int consumedCount;
+
+      Traversal(final ThrowingFunction<IFile, @Nullable R, Exception> processor, final Consumer<R> resultHandler,
+            final ForkJoinPool pool, final int maxPendingFiles, final SubMonitor monitor) {
+         this.processor = processor;
+         this.resultHandler = resultHandler;
+         this.pool = pool;
+         this.monitor = monitor;
+         pendingFiles = new Semaphore(maxPendingFiles);
+      }
+
+      /**
+       * Waits up to {@link #POLL_INTERVAL_MS} for a completed file and consumes its result.
+       */
+      void awaitResult() throws CoreException {
+         checkCanceled();
+         final FileResult<R> fileResult;
+         try {
+            fileResult = completedFiles.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+         } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+         }
+         if (fileResult != null) {
+            consumeResult(fileResult);
+         }
+      }
+
+      void checkCanceled() {
+         if (monitor.isCanceled())
+            throw new OperationCanceledException();
+      }
+
+      void consumeAvailableResults() throws CoreException {
+         FileResult<R> fileResult;
+         while ((fileResult = completedFiles.poll()) != null) {
+            consumeResult(fileResult);
+         }
+      }
+
+      void consumeResult(final FileResult<R> fileResult) throws CoreException {
+         consumedCount++;
+         pendingFiles.release();
+         final var error = fileResult.error;
+         if (error != null) {
+            if (error instanceof final CoreException coreEx)
+               throw coreEx;
+            if (error instanceof final OperationCanceledException cancelEx)
+               throw cancelEx;
+            throw new CoreException(EclipseCommonsPlugin.get().getStatusFactory() //
+               .createError(error, "Failed to process file {0}", fileResult.file.getFullPath()));
+         }
+         final var result = fileResult.result;
+         if (result != null) {
+            resultHandler.accept(result);
+         }
+         monitor.setWorkRemaining(1_000).worked(1);
+      }
+
+      void run(final IContainer root, final Predicate<IResourceProxy> fileFilter) throws CoreException {
+         try {
+            root.accept(proxy -> {
+               checkCanceled();
+               if (proxy.getType() != IResource.FILE)
+                  return true;
+               if (fileFilter.test(proxy)) {
+                  submit((IFile) proxy.requestResource());
+               }
+               return false;
+            }, IResource.NONE);
+
+            while (consumedCount < submittedCount) {
+               awaitResult();
+            }
+         } finally {
+            // let not yet started tasks skip the processing
+            isAborted.set(true);
+         }
+      }
+
+      void submit(final IFile file) throws CoreException {
+         // backpressure: consume results until a slot is available
+         while (!pendingFiles.tryAcquire()) {
+            awaitResult();
+         }
+
+         submittedCount++;
+         pool.execute(() -> {
+            if (isAborted.get()) {
+               completedFiles.add(new FileResult<>(file, null, new OperationCanceledException()));
+               return;
+            }
+            try {
+               completedFiles.add(new FileResult<>(file, processor.applyOrThrow(file), null));
+            } catch (final Exception ex) {
+               completedFiles.add(new FileResult<>(file, null, ex));
+            }
+         });
+
+         // deliver already available results early
+         consumeAvailableResults();
+      }
+   }
+}
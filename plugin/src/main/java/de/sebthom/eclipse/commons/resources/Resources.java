@@ -11,11 +11,28 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SystemUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
@@ -25,11 +42,41 @@
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.annotation.Nullable;
 
+import net.sf.jstuff.core.collection.LRUMap;
+import net.sf.jstuff.core.validation.Args;
+
 /**
  * @author Sebastian Thomschke
  */
 public abstract class Resources {
 
+   private record CachedLastModified(long lastModified, long cachedAtNanos) {
+   }
+
+   private static final int LAST_MODIFIED_CACHE_MAX_SIZE = 16 * 1024;
+
+   /** guarded by itself */
+   private static final LRUMap<Path, CachedLastModified> LAST_MODIFIED_CACHE = new LRUMap<>(LAST_MODIFIED_CACHE_MAX_SIZE);
+
+   private static Charset getCharset(final IFile file) {
+      try {
+         return Charset.forName(file.getCharset());
+      } catch (final Exception ex) {
+         return StandardCharsets.UTF_8;
+      }
+   }
+
+   /**
+    * @return the file system path of the given file if its content can be read directly from the local file system bypassing EFS,
+    *         otherwise null
+    */
+   private static @Nullable Path getLocalPath(final IFile file) {
+      final var location = file.getLocation();
+      if (location == null || !file.exists() || !file.isSynchronized(IResource.DEPTH_ZERO))
+         return null;
+      return location.toFile().toPath();
+   }
+
    public static IWorkspace getWorkspace() {
       return ResourcesPlugin.getWorkspace();
    }
@@ -61,23 +108,203 @@ public static long lastModified(final @Nullable IResource res) {
       return lastModified(res.getLocation());
    }
 
-   public static BufferedReader newBufferedReader(final IFile file) throws CoreException {
-      Charset cs = StandardCharsets.UTF_8;
+   /**
+    * Returns the lines of the given file as a lazily populated stream, i.e. only as much of the file is read and decoded as is
+    * consumed, so e.g. <code>lines(file).limit(10)</code> only reads the beginning of the file.
+    * <p>
+    * Local files that are in sync with the workspace are read directly from the file system, other files are read via
+    * {@link IFile#getContents(boolean)}. In both cases malformed input is replaced with the charset's replacement string.
+    * <p>
+    * Unlike {@link Files#lines(Path, Charset)} the stream is backed by a {@link BufferedReader} and is not split for parallel
+    * processing. This is deliberate: <code>Files.lines</code> fails on malformed input and only supports a few charsets, so the
+    * result would depend on the file's charset and location.
+    * <p>
+    * The returned stream must be closed, e.g. via try-with-resources, to release the underlying file handle.
+    *
+    * @throws UncheckedIOException when consuming the stream if an I/O error occurs
+    */
+   public static Stream<String> lines(final IFile file) throws IOException, CoreException {
+      final var cs = getCharset(file);
+      InputStream in = null;
+      final var localPath = getLocalPath(file);
+      if (localPath != null) {
+         try {
+            in = Files.newInputStream(localPath);
+         } catch (final NoSuchFileException ex) {
+            // file was deleted concurrently, let getContents report it
+         }
+      }
+      if (in == null) {
+         in = file.getContents(true);
+      }
+
+      final var reader = new BufferedReader(new InputStreamReader(in, cs.newDecoder() //
+         .onMalformedInput(CodingErrorAction.REPLACE) //
+         .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+      return reader.lines().onClose(() -> {
+         try {
+            reader.close();
+         } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+         }
+      });
+   }
+
+   /**
+    * Returns the last modified timestamps of the given resources from the file system, like {@link #lastModified(IResource)}, in
+    * bulk.
+    *
+    * @see #lastModified(Collection, long)
+    */
+   public static Map<IResource, Long> lastModified(final Collection<? extends IResource> resources) {
+      return lastModified(resources, 0);
+   }
+
+   /**
+    * Returns the last modified timestamps of the given resources from the file system in bulk.
+    * <p>
+    * On Windows, where directory listings include the file attributes, directories containing multiple of the resources are read in
+    * one {@link Files#walkFileTree(Path, java.util.Set, int, java.nio.file.FileVisitor)} pass instead of querying the attributes of
+    * each file separately.
+    * <p>
+    * Fetched timestamps are kept in a bounded LRU cache shared with {@link #lastModified(IResource, long)}.
+    *
+    * @param maxAgeMS timestamps fetched from the file system within this period by this method or
+    *           {@link #lastModified(IResource, long)} are reused, 0 to always fetch the timestamps
+    * @return the timestamps by resource, 0 for resources that do not exist
+    */
+   public static Map<IResource, Long> lastModified(final Collection<? extends IResource> resources, final long maxAgeMS) {
+      Args.notNegative("maxAgeMS", maxAgeMS);
+
+      final var result = new HashMap<IResource, Long>(resources.size());
+      final long now = System.nanoTime();
+      final long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxAgeMS);
+
+      // group the resources to fetch by directory
+      final var pathsByDirectory = new HashMap<@Nullable Path, Map<Path, List<IResource>>>();
+      for (final IResource res : resources) {
+         final var location = res.getLocation();
+         if (location == null) {
+            result.put(res, 0L);
+            continue;
+         }
+         final var path = location.toFile().toPath();
+         final CachedLastModified cached;
+         if (maxAgeMS == 0) {
+            cached = null;
+         } else {
+            synchronized (LAST_MODIFIED_CACHE) {
+               cached = LAST_MODIFIED_CACHE.get(path);
+            }
+         }
+         if (cached != null && now - cached.cachedAtNanos <= maxAgeNanos) {
+            result.put(res, cached.lastModified);
+            continue;
+         }
+         pathsByDirectory.computeIfAbsent(path.getParent(), dir -> new HashMap<>()) //
+            .computeIfAbsent(path, p -> new ArrayList<>(1)) //
+            .add(res);
+      }
+
+      pathsByDirectory.forEach((dir, resourcesByPath) -> {
+         final var timestamps = new HashMap<Path, Long>(resourcesByPath.size());
+         // on Windows the directory listing contains the file attributes, which Files.walkFileTree passes to the visitor without
+         // querying them again. On other platforms each entry would be stat'ed, which adds I/O instead of saving it.
+         if (SystemUtils.IS_OS_WINDOWS && dir != null && resourcesByPath.size() > 1) {
+            try {
+               Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+                  @Override
+                  public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                     if (resourcesByPath.containsKey(file)) {
+                        timestamps.put(file, attrs.lastModifiedTime().toMillis());
+                     }
+                     return FileVisitResult.CONTINUE;
+                  }
+
+                  @Override
+                  public FileVisitResult visitFileFailed(final Path file, final IOException ex) {
+                     return FileVisitResult.CONTINUE;
+                  }
+               });
+            } catch (final IOException ex) {
+               // directory is not readable, fetch the remaining timestamps individually
+            }
+         }
+
+         resourcesByPath.forEach((path, pathResources) -> {
+            final long lastModified = timestamps.computeIfAbsent(path, Resources::lastModified);
+            synchronized (LAST_MODIFIED_CACHE) {
+               LAST_MODIFIED_CACHE.put(path, new CachedLastModified(lastModified, now));
+            }
+            for (final IResource res : pathResources) {
+               result.put(res, lastModified);
+            }
+         });
+      });
+      return result;
+   }
+
+   /**
+    * Returns the last modified timestamp from the file system, reusing a timestamp fetched within the given period.
+    *
+    * @param maxAgeMS timestamps fetched from the file system within this period by this method or
+    *           {@link #lastModified(Collection, long)} are reused, 0 to always fetch the timestamp
+    * @return 0 if the resource does not exist.
+    */
+   public static long lastModified(final @Nullable IResource res, final long maxAgeMS) {
+      if (res == null)
+         return 0;
+      return lastModified(List.of(res), maxAgeMS).getOrDefault(res, 0L);
+   }
+
+   /**
+    * @return 0 if the file does not exist
+    */
+   private static long lastModified(final Path path) {
       try {
-         cs = Charset.forName(file.getCharset());
-      } catch (final Exception ex) {
-         // ignore
+         return Files.readAttributes(path, BasicFileAttributes.class).lastModifiedTime().toMillis();
+      } catch (final IOException ex) {
+         return 0;
       }
-      return new BufferedReader(new InputStreamReader(file.getContents(true), cs));
    }
 
+   public static BufferedReader newBufferedReader(final IFile file) throws CoreException {
+      return new BufferedReader(new InputStreamReader(file.getContents(true), getCharset(file)));
+   }
+
+   /**
+    * Local files that are in sync with the workspace are read directly via {@link Files#readAllBytes(Path)}, which reads into an
+    * exactly sized array, other files are read via {@link IFile#getContents(boolean)}.
+    */
    public static byte[] readBytes(final IFile file) throws IOException, CoreException {
+      final var localPath = getLocalPath(file);
+      if (localPath != null) {
+         try {
+            return Files.readAllBytes(localPath);
+         } catch (final NoSuchFileException ex) {
+            // file was deleted concurrently, let getContents report it
+         }
+      }
+
       try (InputStream is = file.getContents(true)) {
          return IOUtils.toByteArray(is);
       }
    }
 
+   /**
+    * Local files that are in sync with the workspace are read directly as bytes and decoded in one step, other files are read via
+    * {@link IFile#getContents(boolean)}.
+    */
    public static String readString(final IFile file) throws IOException, CoreException {
+      final var localPath = getLocalPath(file);
+      if (localPath != null) {
+         try {
+            return new String(Files.readAllBytes(localPath), getCharset(file));
+         } catch (final NoSuchFileException ex) {
+            // file was deleted concurrently, let getContents report it
+         }
+      }
+
       try (BufferedReader reader = newBufferedReader(file)) {
          return IOUtils.toString(reader);
       }
@@ -0,0 +1,193 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import static org.eclipse.core.runtime.Platform.getContentTypeManager;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.content.IContentType;
+import org.eclipse.core.runtime.content.IContentTypeManager.ContentTypeChangeEvent;
+import org.eclipse.core.runtime.content.IContentTypeManager.IContentTypeChangeListener;
+import org.eclipse.jdt.annotation.Nullable;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+import net.sf.jstuff.core.collection.LRUMap;
+
+/**
+ * Bounded LRU cache of detected content types keyed by path. An entry is only valid for the modification stamp and charset it was
+ * computed for. Entries of changed or removed resources are evicted via an {@link IResourceChangeListener}, all entries are evicted
+ * when the content type registry changes.
+ *
+ * @author Sebastian Thomschke
+ */
+final class ContentTypeCache implements IResourceChangeListener, IContentTypeChangeListener {
+
+   static final int MAX_ENTRIES = 1024;
+
+   static final ContentTypeCache INSTANCE = new ContentTypeCache();
+
+   private static final int RELEVANT_FILE_CHANGES = IResourceDelta.CONTENT | IResourceDelta.REPLACED | IResourceDelta.ENCODING
+         | IResourceDelta.TYPE;
+
+   /**
+    * @param source the document the content types were detected from, or null if detected from the resource itself
+    */
+   private record Entry(long modificationStamp, @Nullable String charset, @Nullable WeakReference<Object> source,
+         List<IContentType> contentTypes) {
+
+      boolean isValidFor(final long modificationStamp, final @Nullable String charset, final @Nullable Object source) {
+         final var sourceRef = this.source;
+         return this.modificationStamp == modificationStamp //
+               && Objects.equals(this.charset, charset) //
+               && (sourceRef == null ? source == null : sourceRef.get() == source);
+      }
+   }
+
+   private final LRUMap<IPath, Entry> entries = new LRUMap<>(MAX_ENTRIES);
+   private long hitCount;
+   private long missCount;
+   private volatile boolean isListening;
+
+   private ContentTypeCache() {
+   }
+
+   synchronized void clear() {
+      entries.clear();
+   }
+
+   @Override
+   public void contentTypeChanged(final ContentTypeChangeEvent event) {
+      clear();
+   }
+
+   /**
+    * @param source the document the content types are detected from, or null if detected from the resource itself
+    */
+   List<IContentType> get(final IPath path, final long modificationStamp, final @Nullable String charset,
+         final @Nullable Object source, final Supplier<List<IContentType>> loader) {
+      ensureListening();
+
+      synchronized (this) {
+         final var entry = entries.get(path);
+         if (entry != null && entry.isValidFor(modificationStamp, charset, source)) {
+            hitCount++;
+            return entry.contentTypes;
+         }
+         missCount++;
+      }
+
+      // detect outside of the lock, concurrent detections of the same path are harmless
+      final var contentTypes = List.copyOf(loader.get());
+      synchronized (this) {
+         entries.put(path, new Entry(modificationStamp, charset, source == null ? null : new WeakReference<>(source), contentTypes));
+      }
+      return contentTypes;
+   }
+
+   synchronized ContentTypes.CacheStatistics getStatistics() {
+      return new ContentTypes.CacheStatistics(hitCount, missCount, entries.size());
+   }
+
+   private void ensureListening() {
+      if (isListening)
+         return;
+
+      synchronized (this) {
+         if (isListening)
+            return;
+         isListening = true;
+      }
+      try {
+         ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
+         getContentTypeManager().addContentTypeChangeListener(this);
+      } catch (final IllegalStateException ex) {
+         // workspace not available, stale entries are still detected via the modification stamp
+         EclipseCommonsPlugin.log().debug(ex);
+         return;
+      }
+      try {
+         EclipseCommonsPlugin.get().addStopListener(this::stopListening);
+      } catch (final IllegalStateException ex) {
+         // plugin not active, e.g. when used outside of an OSGi runtime
+      }
+   }
+
+   @Override
+   public void resourceChanged(final IResourceChangeEvent event) {
+      final var delta = event.getDelta();
+      if (delta == null)
+         return;
+
+      final var removedPaths = new ArrayList<IPath>();
+      final var removedContainerPaths = new ArrayList<IPath>();
+      try {
+         delta.accept(child -> {
+            final var resource = child.getResource();
+            switch (child.getKind()) {
+               case IResourceDelta.REMOVED:
+                  if (resource.getType() == IResource.FILE) {
+                     removedPaths.add(resource.getFullPath());
+                  } else {
+                     removedContainerPaths.add(resource.getFullPath());
+                  }
+                  return false;
+               case IResourceDelta.CHANGED:
+                  if (resource.getType() == IResource.FILE && (child.getFlags() & RELEVANT_FILE_CHANGES) != 0) {
+                     removedPaths.add(resource.getFullPath());
+                  }
+                  return true;
+               default:
+                  return true;
+            }
+         });
+      } catch (final CoreException ex) {
+         EclipseCommonsPlugin.log().error(ex);
+         clear();
+         return;
+      }
+
+      if (removedPaths.isEmpty() && removedContainerPaths.isEmpty())
+         return;
+
+      synchronized (this) {
+         removedPaths.forEach(entries::remove);
+         if (!removedContainerPaths.isEmpty()) {
+            entries.keySet().removeIf(path -> removedContainerPaths.stream().anyMatch(container -> container.isPrefixOf(path)));
+         }
+      }
+   }
+
+   /**
+    * Unregisters the listeners and clears the cache, invoked when the plugin is stopped.
+    */
+   private void stopListening() {
+      synchronized (this) {
+         if (!isListening)
+            return;
+         isListening = false;
+         entries.clear();
+      }
+      try {
+         ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
+         getContentTypeManager().removeContentTypeChangeListener(this);
+      } catch (final IllegalStateException ex) {
+         EclipseCommonsPlugin.log().debug(ex);
+      }
+   }
+}
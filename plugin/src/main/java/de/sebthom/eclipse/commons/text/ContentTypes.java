@@ -6,51 +6,106 @@
  */
 package de.sebthom.eclipse.commons.text;
 
-import static org.eclipse.core.filebuffers.FileBuffers.getTextFileBufferManager;
 import static org.eclipse.core.runtime.Platform.getContentTypeManager;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
+import org.apache.commons.io.input.BoundedInputStream;
 import org.eclipse.core.filebuffers.ITextFileBuffer;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.content.IContentType;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IFileEditorInput;
 import org.eclipse.ui.IPathEditorInput;
 
 import net.sf.jstuff.core.functional.ThrowingSupplier;
+import net.sf.jstuff.core.validation.Args;
 
 /**
  * @author Sebastian Thomschke
  */
 public abstract class ContentTypes {
+
+   /** default maximum number of files read concurrently by {@link #ofFiles(Stream, IProgressMonitor)} and {@link #ofPaths} */
+   public static final int DEFAULT_IO_CONCURRENCY = 4;
+
+   /** default maximum number of bytes of a document's content inspected by content describers */
+   public static final int DEFAULT_CONTENT_SNIFF_LIMIT = 64 * 1024;
+
+   private static volatile int contentSniffLimit = DEFAULT_CONTENT_SNIFF_LIMIT;
+
+   /**
+    * @param hitCount number of lookups answered from the cache
+    * @param missCount number of lookups that required content type detection
+    * @param size current number of cached entries
+    */
+   public record CacheStatistics(long hitCount, long missCount, int size) {
+   }
+
+   /**
+    * Removes all entries from the content type cache used by {@link #of(IFile)} and {@link #of(ITextFileBuffer)}.
+    */
+   public static void clearCache() {
+      ContentTypeCache.INSTANCE.clear();
+   }
+
    public static @Nullable IContentType findById(final String contentTypeId) {
       return getContentTypeManager().getContentType(contentTypeId);
    }
 
+   /**
+    * @return the maximum number of bytes of a document's content inspected by content describers
+    */
+   public static int getContentSniffLimit() {
+      return contentSniffLimit;
+   }
+
+   /**
+    * @return the statistics of the content type cache used by {@link #of(IFile)} and {@link #of(ITextFileBuffer)}
+    */
+   public static CacheStatistics getCacheStatistics() {
+      return ContentTypeCache.INSTANCE.getStatistics();
+   }
+
    public static List<IContentType> of(final @Nullable IDocument doc) {
       if (doc == null)
          return Collections.emptyList();
 
-      final var buff = getTextFileBufferManager().getTextFileBuffer(doc);
+      final var buff = Documents.getTextFileBuffer(doc);
       if (buff == null)
-         return of(null, () -> new ByteArrayInputStream(doc.get().getBytes()));
+         return of(null, () -> newPrefixInputStream(doc));
 
       return of(buff);
    }
 
    public static List<IContentType> of(final IEditorInput input) {
       if (input instanceof final IFileEditorInput fInput)
-         return of(fInput.getName(), () -> fInput.getFile().getContents());
+         return of(fInput.getFile());
 
       if (input instanceof final IPathEditorInput pInput)
          return of(pInput.getPath().toFile().toPath());
@@ -58,14 +113,43 @@ public static List<IContentType> of(final IEditorInput input) {
       return List.of(getContentTypeManager().findContentTypesFor(input.getName()));
    }
 
+   /**
+    * The result is cached per file until the file's modification stamp or explicit charset changes.
+    */
    public static List<IContentType> of(final IFile file) {
-      return of(file.getName(), file::getContents);
+      final long modificationStamp = file.getModificationStamp();
+      if (modificationStamp == IResource.NULL_STAMP)
+         return of(file.getName(), file::getContents);
+
+      String charset;
+      try {
+         charset = file.getCharset(false);
+      } catch (final CoreException ex) {
+         charset = null;
+      }
+      return ContentTypeCache.INSTANCE.get(file.getFullPath(), modificationStamp, charset, null, //
+         () -> of(file.getName(), file::getContents));
    }
 
+   /**
+    * The result is cached per buffer until the document's modification stamp or the buffer's encoding changes.
+    */
    public static List<IContentType> of(final ITextFileBuffer buff) {
+      final var doc = buff.getDocument();
+      final long modificationStamp = doc instanceof final IDocumentExtension4 docExt
+            ? docExt.getModificationStamp()
+            : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+      if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+         return detect(buff);
+
+      return new ArrayList<>(ContentTypeCache.INSTANCE.get(buff.getLocation(), modificationStamp, buff.getEncoding(), doc, //
+         () -> detect(buff)));
+   }
+
+   private static List<IContentType> detect(final ITextFileBuffer buff) {
       final String fileName = buff.getLocation().lastSegment();
       final var result = new ArrayList<>( //
-         of(fileName, () -> new ByteArrayInputStream(buff.getDocument().get().getBytes())) //
+         of(fileName, () -> newPrefixInputStream(buff.getDocument())) //
       );
 
       try {
@@ -91,10 +175,139 @@ public static List<IContentType> of(final ITextFileBuffer buff) {
       return result;
    }
 
+   /**
+    * @see #ofFiles(Stream, int, IProgressMonitor)
+    */
+   public static Map<IFile, List<IContentType>> ofFiles(final Stream<IFile> files, final @Nullable IProgressMonitor monitor) {
+      return ofFiles(files, DEFAULT_IO_CONCURRENCY, monitor);
+   }
+
+   /**
+    * Detects the content types of the given files in parallel.
+    * <p>
+    * Files whose name maps to exactly one content type are classified by name only without reading their content. All other files
+    * are classified via {@link #of(IFile)} on the common {@link ForkJoinPool} with at most <code>maxConcurrency</code> files read
+    * concurrently.
+    *
+    * @return the content types per file in the order of the given stream
+    * @throws OperationCanceledException if the monitor was canceled
+    */
+   public static Map<IFile, List<IContentType>> ofFiles(final Stream<IFile> files, final int maxConcurrency,
+         final @Nullable IProgressMonitor monitor) {
+      return ofAll(files, IFile::getName, ContentTypes::of, maxConcurrency, monitor);
+   }
+
+   /**
+    * @see #ofPaths(Stream, int, IProgressMonitor)
+    */
+   public static Map<Path, List<IContentType>> ofPaths(final Stream<Path> paths, final @Nullable IProgressMonitor monitor) {
+      return ofPaths(paths, DEFAULT_IO_CONCURRENCY, monitor);
+   }
+
+   /**
+    * Detects the content types of the given files in parallel.
+    * <p>
+    * Files whose name maps to exactly one content type are classified by name only without reading their content. All other files
+    * are classified via {@link #of(Path)} on the common {@link ForkJoinPool} with at most <code>maxConcurrency</code> files read
+    * concurrently.
+    *
+    * @return the content types per file in the order of the given stream
+    * @throws OperationCanceledException if the monitor was canceled
+    */
+   public static Map<Path, List<IContentType>> ofPaths(final Stream<Path> paths, final int maxConcurrency,
+         final @Nullable IProgressMonitor monitor) {
+      return ofAll(paths, path -> String.valueOf(path.getFileName()), ContentTypes::of, maxConcurrency, monitor);
+   }
+
+   private static <T> Map<T, List<IContentType>> ofAll(final Stream<T> items, final Function<T, String> fileNameProvider,
+         final Function<T, List<IContentType>> detector, final int maxConcurrency, final @Nullable IProgressMonitor monitor) {
+      Args.min("maxConcurrency", maxConcurrency, 1);
+
+      final List<T> itemList = items.distinct().toList();
+      final var subMonitor = SubMonitor.convert(monitor, "Detecting content types", itemList.size());
+      final var results = new AtomicReferenceArray<List<IContentType>>(itemList.size());
+
+      // classify files with unambiguous names without reading their content
+      final var pendingIndexes = new ArrayList<Integer>();
+      for (int i = 0; i < itemList.size(); i++) {
+         final var contentTypesByName = getContentTypeManager().findContentTypesFor(fileNameProvider.apply(itemList.get(i)));
+         if (contentTypesByName.length == 1) {
+            results.set(i, List.of(contentTypesByName));
+            subMonitor.worked(1);
+         } else {
+            pendingIndexes.add(i);
+         }
+         if (subMonitor.isCanceled())
+            throw new OperationCanceledException();
+      }
+
+      if (!pendingIndexes.isEmpty()) {
+         // at most maxConcurrency detections are submitted to the shared pool at a time, the next one when a detection completes
+         final var completionService = new ExecutorCompletionService<@Nullable Void>(ForkJoinPool.commonPool());
+         final var futures = new ArrayList<Future<@Nullable Void>>(pendingIndexes.size());
+         final IntFunction<Future<@Nullable Void>> submit = index -> completionService.submit(() -> {
+            results.set(index, detector.apply(itemList.get(index)));
+            return null;
+         });
+         try {
+            int submitted = 0;
+            for (final int concurrency = Math.min(maxConcurrency, pendingIndexes.size()); submitted < concurrency; submitted++) {
+               futures.add(submit.apply(pendingIndexes.get(submitted)));
+            }
+            for (int i = 0; i < pendingIndexes.size(); i++) {
+               Future<@Nullable Void> done;
+               while ((done = completionService.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                  if (subMonitor.isCanceled())
+                     throw new OperationCanceledException();
+               }
+               done.get();
+               subMonitor.worked(1);
+               if (submitted < pendingIndexes.size()) {
+                  futures.add(submit.apply(pendingIndexes.get(submitted++)));
+               }
+            }
+         } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+         } catch (final ExecutionException ex) {
+            throw ex.getCause() instanceof final RuntimeException rex ? rex : new IllegalStateException(ex.getCause());
+         } finally {
+            futures.forEach(future -> future.cancel(true));
+         }
+      }
+
+      final var result = new LinkedHashMap<T, List<IContentType>>(itemList.size());
+      for (int i = 0; i < itemList.size(); i++) {
+         result.put(itemList.get(i), results.get(i));
+      }
+      return result;
+   }
+
+   /**
+    * @return a stream providing at most {@link #getContentSniffLimit()} bytes of the encoded document content. The content is
+    *         encoded lazily, so the costs do not depend on the document size.
+    */
+   private static InputStream newPrefixInputStream(final IDocument doc) throws IOException {
+      return BoundedInputStream.builder() //
+         .setInputStream(new DocumentInputStream(doc)) //
+         .setMaxCount(contentSniffLimit) //
+         .get();
+   }
+
    public static List<IContentType> of(final Path path) {
       return of(path.getFileName().toString(), () -> Files.newInputStream(path));
    }
 
+   /**
+    * Sets the maximum number of bytes of a document's content inspected by content describers in {@link #of(IDocument)} and
+    * {@link #of(ITextFileBuffer)}. Only needs to be raised for content describers looking far beyond the beginning of a document.
+    */
+   public static void setContentSniffLimit(final int maxBytes) {
+      Args.min("maxBytes", maxBytes, 1);
+      contentSniffLimit = maxBytes;
+      clearCache();
+   }
+
    private static List<IContentType> of(final @Nullable String fileName,
          final ThrowingSupplier<@Nullable InputStream, Exception> inputStreamFactory) {
       try (var in = inputStreamFactory.get()) {
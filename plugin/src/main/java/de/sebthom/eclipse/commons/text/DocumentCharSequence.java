@@ -0,0 +1,138 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
+import net.sf.jstuff.core.validation.Args;
+
+/**
+ * {@link CharSequence} view of an {@link IDocument} that can be passed directly to e.g. {@link java.util.regex.Matcher} without
+ * materializing the whole document via {@link IDocument#get()}.
+ * <p>
+ * Characters are fetched lazily in fixed-size windows via {@link IDocument#get(int, int)}. The length of the sequence is captured
+ * on creation, if the document is modified while the sequence is in use a {@link ConcurrentModificationException} may be thrown.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class DocumentCharSequence implements CharSequence {
+
+   /** number of chars fetched from the document at once */
+   public static final int DEFAULT_WINDOW_SIZE = 4 * 1024;
+
+   private final IDocument doc;
+   private final int start;
+   private final int length;
+   private final int windowSize;
+
+   private String window = "";
+   private int windowStart;
+
+   public DocumentCharSequence(final IDocument doc) {
+      this(doc, 0, doc.getLength(), DEFAULT_WINDOW_SIZE);
+   }
+
+   /**
+    * @param start the document offset of the first char of the sequence
+    * @param end the document offset after the last char of the sequence
+    */
+   public DocumentCharSequence(final IDocument doc, final int start, final int end) {
+      this(doc, start, end, DEFAULT_WINDOW_SIZE);
+   }
+
+   /**
+    * @param start the document offset of the first char of the sequence
+    * @param end the document offset after the last char of the sequence
+    * @param windowSize number of chars to fetch from the document at once
+    */
+   public DocumentCharSequence(final IDocument doc, final int start, final int end, final int windowSize) {
+      Args.min("windowSize", windowSize, 1);
+      Objects.checkFromToIndex(start, end, doc.getLength());
+      this.doc = doc;
+      this.start = start;
+      length = end - start;
+      this.windowSize = windowSize;
+   }
+
+   @Override
+   public char charAt(final int index) {
+      Objects.checkIndex(index, length);
+      final int offset = start + index;
+      int relIndex = offset - windowStart;
+      if (relIndex < 0 || relIndex >= window.length()) {
+         // keep a quarter of the window before the requested offset to cheaply support short backward scans, e.g. look-behinds
+         loadWindow(Math.max(start, offset - windowSize / 4));
+         relIndex = offset - windowStart;
+      }
+      return window.charAt(relIndex);
+   }
+
+   /**
+    * Copies the chars of the given range into the destination array, bypassing the window cache.
+    *
+    * @see String#getChars(int, int, char[], int)
+    */
+   public void getChars(final int srcBegin, final int srcEnd, final char[] dst, final int dstBegin) {
+      Objects.checkFromToIndex(srcBegin, srcEnd, length);
+      Objects.checkFromIndexSize(dstBegin, srcEnd - srcBegin, dst.length);
+      if (srcBegin == srcEnd)
+         return;
+      get(start + srcBegin, srcEnd - srcBegin).getChars(0, srcEnd - srcBegin, dst, dstBegin);
+   }
+
+   public IDocument getDocument() {
+      return doc;
+   }
+
+   private String get(final int offset, final int len) {
+      try {
+         return doc.get(offset, len);
+      } catch (final BadLocationException ex) {
+         throw new ConcurrentModificationException("Document was modified concurrently", ex);
+      }
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return length == 0;
+   }
+
+   @Override
+   public int length() {
+      return length;
+   }
+
+   private void loadWindow(final int offset) {
+      final int end = start + length;
+      window = get(offset, Math.min(windowSize, end - offset));
+      windowStart = offset;
+   }
+
+   @Override
+   public DocumentCharSequence subSequence(final int subStart, final int subEnd) {
+      Objects.checkFromToIndex(subStart, subEnd, length);
+      return new DocumentCharSequence(doc, start + subStart, start + subEnd, windowSize);
+   }
+
+   /**
+    * @return the chars of this sequence as string, e.g. when called on a regex group returned by
+    *         {@link java.util.regex.Matcher#group()} only the group's chars are fetched from the document.
+    */
+   @Override
+   public String toString() {
+      final int relStart = start - windowStart;
+      if (relStart >= 0 && relStart + length <= window.length())
+         return window.substring(relStart, relStart + length);
+      return get(start, length);
+   }
+}
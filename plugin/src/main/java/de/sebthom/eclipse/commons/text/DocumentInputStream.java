@@ -6,23 +6,441 @@
  */
 package de.sebthom.eclipse.commons.text;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
 
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 
 import net.sf.jstuff.core.io.stream.CharSequenceInputStream;
+import net.sf.jstuff.core.validation.Args;
 
 /**
+ * Input stream that encodes the content of an {@link IDocument} using the charset of the document's text file buffer.
+ * <p>
+ * By default ({@link Mode#CHUNKED}) the characters are fetched in blocks via {@link IDocument#get(int, int)} and encoded with a
+ * reusable {@link CharsetEncoder} into a pooled {@link ByteBuffer}. {@link Mode#PER_CHAR} fetches the characters one by one via
+ * {@link IDocument#getChar(int)} and is kept as a fallback.
+ * <p>
+ * By default the stream reads the live document content. Using {@link ModificationPolicy#FAIL} or {@link ModificationPolicy#RESTART}
+ * the {@link IDocumentExtension4#getModificationStamp() modification stamp} of the document is captured when the stream is created
+ * and verified after each fetched block, so that background jobs can read a consistent snapshot of the document without copying it
+ * up-front.
+ *
  * @author Sebastian Thomschke
  */
-public final class DocumentInputStream extends CharSequenceInputStream {
+public final class DocumentInputStream extends InputStream {
+
+   public enum Mode {
+      /**
+       * characters are fetched in blocks via {@link IDocument#get(int, int)}
+       */
+      CHUNKED,
+
+      /**
+       * characters are fetched one by one via {@link IDocument#getChar(int)}
+       */
+      PER_CHAR
+   }
+
+   public enum ModificationPolicy {
+      /**
+       * modifications of the document are not detected, the stream reflects the live document content
+       */
+      IGNORE,
+
+      /**
+       * an {@link IOException} is thrown when the document is modified while the stream is read
+       */
+      FAIL,
+
+      /**
+       * the stream transparently restarts from the beginning of the document when it is modified before the first byte has been
+       * read by the consumer, otherwise an {@link IOException} is thrown
+       */
+      RESTART
+   }
+
+   private enum EncoderState {
+      ENCODING,
+      FLUSHING,
+      DONE
+   }
+
+   /** number of chars fetched from the document at once */
+   public static final int DEFAULT_CHUNK_SIZE = 8 * 1024;
+
+   private static final int MAX_RESTARTS = 16;
+   private static final int MAX_POOLED_BUFFERS = 4;
+   private static final ArrayBlockingQueue<ByteBuffer> BYTE_BUFFER_POOL = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+   private static final ByteBuffer EMPTY_BYTE_BUFFER = ByteBuffer.allocate(0);
+
+   private static ByteBuffer acquireByteBuffer(final int minCapacity) {
+      final var buf = BYTE_BUFFER_POOL.poll();
+      if (buf != null && buf.capacity() >= minCapacity)
+         return buf.clear();
+      return ByteBuffer.allocate(minCapacity);
+   }
 
    private static Charset getCharset(final IDocument document) {
       final var cs = Documents.getCharset(document);
       return cs == null ? Charset.defaultCharset() : cs;
    }
 
+   private static CharsetEncoder newEncoder(final Charset charset) {
+      final var encoder = charset.newEncoder();
+      // replace isolated surrogates with the Unicode replacement char like CharSequenceInputStream does
+      try {
+         final byte[] replacement = "\uFFFD".getBytes(charset);
+         if (encoder.isLegalReplacement(replacement)) {
+            encoder.replaceWith(replacement);
+         }
+      } catch (final UnsupportedOperationException ex) {
+         // ignore, use the encoder's default replacement
+      }
+      encoder.onMalformedInput(CodingErrorAction.REPLACE);
+      return encoder;
+   }
+
+   private final IDocument doc;
+   private final Charset charset;
+   private final @Nullable CharSequenceInputStream perCharStream;
+
+   private final char[] chars;
+   private final CharBuffer charBuffer;
+   private ByteBuffer byteBuffer = EMPTY_BYTE_BUFFER;
+   private final @Nullable CharsetEncoder encoder;
+   private EncoderState encoderState = EncoderState.ENCODING;
+   private int docOffset;
+
+   private final ModificationPolicy modificationPolicy;
+   private long modificationStamp = IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+   private long totalBytesRead;
+   private int restarts;
+
+   private byte @Nullable [] markedBytes;
+   private char @Nullable [] markedChars;
+   private int markedDocOffset;
+   private EncoderState markedEncoderState = EncoderState.ENCODING;
+
    public DocumentInputStream(final IDocument doc) {
-      super(doc::getChar, doc::getLength, getCharset(doc));
+      this(doc, Mode.CHUNKED);
+   }
+
+   public DocumentInputStream(final IDocument doc, final Mode mode) {
+      this(doc, mode, DEFAULT_CHUNK_SIZE);
+   }
+
+   /**
+    * @param chunkSize number of characters to fetch from the document at once in {@link Mode#CHUNKED}
+    */
+   public DocumentInputStream(final IDocument doc, final Mode mode, final int chunkSize) {
+      this(doc, mode, chunkSize, ModificationPolicy.IGNORE);
+   }
+
+   /**
+    * Creates a {@link Mode#CHUNKED} stream using the given modification policy.
+    *
+    * @throws IllegalArgumentException if the policy is not {@link ModificationPolicy#IGNORE} and the document does not provide
+    *            modification stamps
+    */
+   public DocumentInputStream(final IDocument doc, final ModificationPolicy modificationPolicy) {
+      this(doc, Mode.CHUNKED, DEFAULT_CHUNK_SIZE, modificationPolicy);
+   }
+
+   /**
+    * @param chunkSize number of characters to fetch from the document at once in {@link Mode#CHUNKED}
+    *
+    * @throws IllegalArgumentException if the policy is not {@link ModificationPolicy#IGNORE} and the document does not provide
+    *            modification stamps or {@link Mode#PER_CHAR} is requested
+    */
+   public DocumentInputStream(final IDocument doc, final Mode mode, final int chunkSize, final ModificationPolicy modificationPolicy) {
+      Args.min("chunkSize", chunkSize, 2); // at least 2 chars to hold a high/low surrogate pair
+      this.doc = doc;
+      this.modificationPolicy = modificationPolicy;
+      charset = getCharset(doc);
+
+      if (modificationPolicy != ModificationPolicy.IGNORE) {
+         if (mode == Mode.PER_CHAR)
+            throw new IllegalArgumentException("Modification policy " + modificationPolicy + " requires mode " + Mode.CHUNKED);
+         modificationStamp = getModificationStamp();
+         if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+            throw new IllegalArgumentException("Modification policy " + modificationPolicy
+                  + " requires a document providing modification stamps but got " + doc.getClass().getName());
+      }
+
+      if (mode == Mode.PER_CHAR) {
+         perCharStream = new CharSequenceInputStream(doc::getChar, doc::getLength, charset);
+         encoder = null;
+         chars = new char[0];
+      } else {
+         perCharStream = null;
+         final var encoder = this.encoder = newEncoder(charset);
+         chars = new char[chunkSize];
+         byteBuffer = acquireByteBuffer((int) Math.ceil(chunkSize * (double) encoder.maxBytesPerChar())).flip();
+      }
+      charBuffer = CharBuffer.wrap(chars).flip();
+   }
+
+   @Override
+   public int available() throws IOException {
+      final var perCharStream = this.perCharStream;
+      if (perCharStream != null)
+         return perCharStream.available();
+
+      if (encoderState == EncoderState.DONE)
+         return byteBuffer.remaining();
+      return byteBuffer.remaining() + charBuffer.remaining() + Math.max(0, doc.getLength() - docOffset);
+   }
+
+   @Override
+   public void close() throws IOException {
+      final var perCharStream = this.perCharStream;
+      if (perCharStream != null) {
+         perCharStream.close();
+         return;
+      }
+
+      encoderState = EncoderState.DONE;
+      final var byteBuffer = this.byteBuffer;
+      if (byteBuffer != EMPTY_BYTE_BUFFER) {
+         this.byteBuffer = EMPTY_BYTE_BUFFER;
+         BYTE_BUFFER_POOL.offer(byteBuffer);
+      }
+   }
+
+   /**
+    * Encodes the next characters of the document into the given buffer.
+    *
+    * @return the number of bytes written into <code>out</code> or -1 if the end of the document has been reached
+    */
+   private int encodeInto(final ByteBuffer out) throws IOException {
+      final var encoder = Objects.requireNonNull(this.encoder);
+      final int startPos = out.position();
+      try {
+         while (out.position() == startPos && out.hasRemaining()) {
+            switch (encoderState) {
+               case ENCODING: {
+                  boolean isEndOfInput;
+                  try {
+                     isEndOfInput = fillCharBuffer();
+                  } catch (final BadLocationException ex) {
+                     if (modificationPolicy == ModificationPolicy.IGNORE)
+                        throw ex;
+                     isEndOfInput = true; // the modification is handled below
+                  }
+                  if (isModified()) {
+                     restart(out, startPos);
+                     continue;
+                  }
+                  final CoderResult result = encoder.encode(charBuffer, out, isEndOfInput);
+                  if (result.isError()) {
+                     result.throwException();
+                  }
+                  if (result.isOverflow())
+                     return out.position() - startPos;
+                  if (isEndOfInput) {
+                     encoderState = EncoderState.FLUSHING;
+                  }
+                  break;
+               }
+               case FLUSHING: {
+                  final CoderResult result = encoder.flush(out);
+                  if (result.isError()) {
+                     result.throwException();
+                  }
+                  if (result.isUnderflow()) {
+                     encoderState = EncoderState.DONE;
+                  }
+                  break;
+               }
+               case DONE:
+                  final int bytesWritten = out.position() - startPos;
+                  return bytesWritten == 0 ? -1 : bytesWritten;
+            }
+         }
+      } catch (final BadLocationException ex) {
+         throw new IOException("Document was modified concurrently", ex);
+      }
+      return out.position() - startPos;
+   }
+
+   /**
+    * Appends the next block of characters from the document to {@link #charBuffer}, preserving not yet encoded characters,
+    * e.g. a dangling high surrogate at the end of the previous block.
+    *
+    * @return true if the end of the document has been reached
+    */
+   private boolean fillCharBuffer() throws BadLocationException {
+      final int docLength = doc.getLength();
+      charBuffer.compact();
+      final int charsToFetch = Math.min(charBuffer.remaining(), docLength - docOffset);
+      if (charsToFetch > 0) {
+         final int pos = charBuffer.position();
+         doc.get(docOffset, charsToFetch).getChars(0, charsToFetch, chars, pos);
+         charBuffer.position(pos + charsToFetch);
+         docOffset += charsToFetch;
+      }
+      charBuffer.flip();
+      return docOffset >= docLength;
+   }
+
+   public Charset getCharset() {
+      return charset;
+   }
+
+   public Mode getMode() {
+      return perCharStream == null ? Mode.CHUNKED : Mode.PER_CHAR;
+   }
+
+   public ModificationPolicy getModificationPolicy() {
+      return modificationPolicy;
+   }
+
+   private long getModificationStamp() {
+      return doc instanceof final IDocumentExtension4 docExt //
+            ? docExt.getModificationStamp()
+            : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+   }
+
+   private boolean isModified() {
+      return modificationPolicy != ModificationPolicy.IGNORE && getModificationStamp() != modificationStamp;
+   }
+
+   @Override
+   public synchronized void mark(final int readlimit) {
+      final var perCharStream = this.perCharStream;
+      if (perCharStream != null) {
+         perCharStream.mark(readlimit);
+         return;
+      }
+
+      final var markedBytes = this.markedBytes = new byte[byteBuffer.remaining()];
+      byteBuffer.duplicate().get(markedBytes);
+      final var markedChars = this.markedChars = new char[charBuffer.remaining()];
+      charBuffer.duplicate().get(markedChars);
+      markedDocOffset = docOffset;
+      markedEncoderState = encoderState;
+   }
+
+   @Override
+   public boolean markSupported() {
+      return true;
+   }
+
+   @Override
+   public int read() throws IOException {
+      final var perCharStream = this.perCharStream;
+      if (perCharStream != null)
+         return perCharStream.read();
+
+      if (!byteBuffer.hasRemaining() && !refillByteBuffer())
+         return -1;
+      totalBytesRead++;
+      return byteBuffer.get() & 0xFF;
+   }
+
+   @Override
+   public int read(final byte[] buf, final int off, final int len) throws IOException {
+      final var perCharStream = this.perCharStream;
+      if (perCharStream != null)
+         return perCharStream.read(buf, off, len);
+
+      Objects.checkFromIndexSize(off, len, buf.length);
+      if (len == 0)
+         return 0;
+
+      int bytesRead = 0;
+      while (bytesRead < len) {
+         if (!byteBuffer.hasRemaining()) {
+            // large reads are encoded directly into the caller's array
+            if (len - bytesRead >= byteBuffer.capacity() && byteBuffer != EMPTY_BYTE_BUFFER) {
+               final int bytesEncoded = encodeInto(ByteBuffer.wrap(buf, off + bytesRead, len - bytesRead));
+               if (bytesEncoded <= 0) {
+                  break;
+               }
+               bytesRead += bytesEncoded;
+               totalBytesRead += bytesEncoded;
+               continue;
+            }
+            if (!refillByteBuffer()) {
+               break;
+            }
+         }
+         final int bytesToReadNow = Math.min(len - bytesRead, byteBuffer.remaining());
+         byteBuffer.get(buf, off + bytesRead, bytesToReadNow);
+         bytesRead += bytesToReadNow;
+         totalBytesRead += bytesToReadNow;
+      }
+      return bytesRead == 0 ? -1 : bytesRead;
+   }
+
+   private boolean refillByteBuffer() throws IOException {
+      if (byteBuffer == EMPTY_BYTE_BUFFER) // stream closed
+         return false;
+
+      byteBuffer.clear();
+      final int bytesEncoded = encodeInto(byteBuffer);
+      byteBuffer.flip();
+      return bytesEncoded > 0;
+   }
+
+   /**
+    * Restarts encoding from the beginning of the document after a modification was detected, discarding the bytes encoded into
+    * <code>out</code> so far.
+    *
+    * @throws IOException if the modification policy does not allow a restart
+    */
+   private void restart(final ByteBuffer out, final int outStartPos) throws IOException {
+      if (modificationPolicy != ModificationPolicy.RESTART || totalBytesRead > 0 || restarts >= MAX_RESTARTS)
+         throw new IOException("Document was modified while being read");
+
+      restarts++;
+      modificationStamp = getModificationStamp();
+      Objects.requireNonNull(encoder).reset();
+      encoderState = EncoderState.ENCODING;
+      docOffset = 0;
+      charBuffer.clear().flip();
+      out.position(outStartPos);
+   }
+
+   @Override
+   public synchronized void reset() throws IOException {
+      final var perCharStream = this.perCharStream;
+      if (perCharStream != null) {
+         perCharStream.reset();
+         return;
+      }
+
+      if (byteBuffer == EMPTY_BYTE_BUFFER)
+         throw new IOException("Stream closed");
+
+      Objects.requireNonNull(encoder).reset();
+      final var markedBytes = this.markedBytes;
+      final var markedChars = this.markedChars;
+      byteBuffer.clear();
+      charBuffer.clear();
+      if (markedBytes == null || markedChars == null) {
+         docOffset = 0;
+         encoderState = EncoderState.ENCODING;
+      } else {
+         byteBuffer.put(markedBytes);
+         charBuffer.put(markedChars);
+         docOffset = markedDocOffset;
+         // the encoder has been reset, so flushing must be preceded by another end-of-input encoding step
+         encoderState = markedEncoderState == EncoderState.DONE ? EncoderState.DONE : EncoderState.ENCODING;
+      }
+      byteBuffer.flip();
+      charBuffer.flip();
    }
 }
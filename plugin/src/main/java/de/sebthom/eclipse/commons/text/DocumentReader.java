@@ -0,0 +1,130 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
+import net.sf.jstuff.core.validation.Args;
+
+/**
+ * {@link Reader} over the content of an {@link IDocument} that fetches the chars in blocks via {@link IDocument#get(int, int)}
+ * instead of materializing the whole document via {@link IDocument#get()}.
+ * <p>
+ * Not thread-safe.
+ *
+ * @author Sebastian Thomschke
+ */
+public final class DocumentReader extends Reader {
+
+   private @Nullable IDocument doc;
+   private int offset;
+   private int mark;
+
+   public DocumentReader(final IDocument doc) {
+      this(doc, 0);
+   }
+
+   /**
+    * @param startOffset the document offset to start reading from
+    */
+   public DocumentReader(final IDocument doc, final int startOffset) {
+      Args.inRange("startOffset", startOffset, 0, doc.getLength());
+      this.doc = doc;
+      offset = startOffset;
+      mark = startOffset;
+   }
+
+   @Override
+   public void close() {
+      doc = null;
+   }
+
+   private IDocument ensureOpen() throws IOException {
+      final var doc = this.doc;
+      if (doc == null)
+         throw new IOException("Stream closed");
+      return doc;
+   }
+
+   /**
+    * @return the document offset of the next char to be read
+    */
+   public int getOffset() {
+      return offset;
+   }
+
+   @Override
+   public void mark(final int readAheadLimit) throws IOException {
+      Args.notNegative("readAheadLimit", readAheadLimit);
+      ensureOpen();
+      mark = offset;
+   }
+
+   @Override
+   public boolean markSupported() {
+      return true;
+   }
+
+   @Override
+   public int read() throws IOException {
+      final var doc = ensureOpen();
+      if (offset >= doc.getLength())
+         return -1;
+      try {
+         return doc.getChar(offset++);
+      } catch (final BadLocationException ex) {
+         throw new IOException(ex);
+      }
+   }
+
+   @Override
+   public int read(final char[] cbuf, final int off, final int len) throws IOException {
+      final var doc = ensureOpen();
+      Objects.checkFromIndexSize(off, len, cbuf.length);
+      if (len == 0)
+         return 0;
+
+      final int charsToRead = Math.min(doc.getLength() - offset, len);
+      if (charsToRead <= 0)
+         return -1;
+
+      try {
+         doc.get(offset, charsToRead).getChars(0, charsToRead, cbuf, off);
+      } catch (final BadLocationException ex) {
+         throw new IOException(ex);
+      }
+      offset += charsToRead;
+      return charsToRead;
+   }
+
+   @Override
+   public boolean ready() throws IOException {
+      ensureOpen();
+      return true;
+   }
+
+   @Override
+   public void reset() throws IOException {
+      ensureOpen();
+      offset = mark;
+   }
+
+   @Override
+   public long skip(final long n) throws IOException {
+      Args.notNegative("n", n);
+      final var doc = ensureOpen();
+      final int charsToSkip = (int) Math.min(Math.max(0, doc.getLength() - offset), n);
+      offset += charsToSkip;
+      return charsToSkip;
+   }
+}
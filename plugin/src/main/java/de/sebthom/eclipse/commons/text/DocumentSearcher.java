@@ -0,0 +1,246 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.Position;
+
+import net.sf.jstuff.core.validation.Args;
+
+/**
+ * Finds all matches of one or more patterns in an {@link IDocument} without changing the selection of an editor, e.g. to highlight
+ * all occurrences via {@link Markers#setMarkers(org.eclipse.jface.text.source.IAnnotationModel, List)}.
+ * <p>
+ * Large documents are split into line-aligned segments which are searched in parallel on a {@link ForkJoinPool}. The methods are
+ * blocking and intended to be called from a background job, not from the UI thread.
+ *
+ * @author Sebastian Thomschke
+ */
+public abstract class DocumentSearcher {
+
+   /** approximate number of chars per segment searched by one task */
+   public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+
+   private static final int MAX_ATTEMPTS = 3;
+   private static final int CANCEL_CHECK_INTERVAL = 256;
+
+   private static final Comparator<Position> POSITION_ORDER = Comparator //
+      .comparingInt(Position::getOffset) //
+      .thenComparingInt(Position::getLength);
+
+   /**
+    * Creates a pattern using the same semantics as
+    * {@link FindReplaceTarget#findAndSelect(int, String, boolean, boolean, boolean, boolean)}.
+    *
+    * @param wholeWord if true, only matches not directly surrounded by word characters are found
+    */
+   public static Pattern compile(final String findString, final boolean caseSensitive, final boolean wholeWord,
+         final boolean regExSearch) {
+      Args.notEmpty("findString", findString);
+
+      var regex = regExSearch ? findString : Pattern.quote(findString);
+      if (wholeWord) {
+         regex = "(?<!\\w)(?:" + regex + ")(?!\\w)";
+      }
+      int flags = Pattern.MULTILINE;
+      if (!caseSensitive) {
+         flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+      }
+      return Pattern.compile(regex, flags);
+   }
+
+   /**
+    * @see #findAll(IDocument, Collection, ForkJoinPool, int, IProgressMonitor)
+    */
+   public static List<Position> findAll(final IDocument doc, final Collection<Pattern> patterns,
+         final @Nullable IProgressMonitor monitor) {
+      return findAll(doc, patterns, ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE, monitor);
+   }
+
+   /**
+    * Finds all non-empty matches of the given patterns.
+    *
+    * @param segmentSize approximate number of chars per segment, documents not larger than this are searched in the calling thread
+    * @return the positions of all matches, sorted by offset and length, without duplicates
+    *
+    * @throws OperationCanceledException if the monitor was canceled
+    * @throws ConcurrentModificationException if the document was repeatedly modified during the search
+    */
+   public static List<Position> findAll(final IDocument doc, final Collection<Pattern> patterns, final ForkJoinPool pool,
+         final int segmentSize, final @Nullable IProgressMonitor monitor) {
+      Args.min("segmentSize", segmentSize, 1);
+
+      if (patterns.isEmpty() || doc.getLength() == 0)
+         return new ArrayList<>();
+
+      for (int attempt = 1;; attempt++) {
+         final long stamp = getModificationStamp(doc);
+         try {
+            final var result = findAllInternal(doc, patterns, pool, segmentSize, monitor);
+            if (stamp == getModificationStamp(doc))
+               return result;
+         } catch (final ConcurrentModificationException ex) {
+            if (attempt >= MAX_ATTEMPTS)
+               throw ex;
+            continue;
+         }
+         if (attempt >= MAX_ATTEMPTS)
+            throw new ConcurrentModificationException("Document was modified during search");
+      }
+   }
+
+   /**
+    * @see #findAll(IDocument, Collection, ForkJoinPool, int, IProgressMonitor)
+    */
+   public static List<Position> findAll(final IDocument doc, final Pattern pattern) {
+      return findAll(doc, List.of(pattern), null);
+   }
+
+   private static List<Position> findAllInternal(final IDocument doc, final Collection<Pattern> patterns, final ForkJoinPool pool,
+         final int segmentSize, final @Nullable IProgressMonitor monitor) {
+      final int[] segments = getSegmentBoundaries(doc, segmentSize);
+      final int segmentCount = segments.length - 1;
+      final var subMonitor = SubMonitor.convert(monitor, "Searching", patterns.size() * segmentCount);
+
+      final var tasks = new ArrayList<ForkJoinTask<List<Position>>>(patterns.size() * segmentCount);
+      for (final Pattern pattern : patterns) {
+         for (int i = 0; i < segmentCount; i++) {
+            final int segStart = segments[i];
+            final int segEnd = segments[i + 1];
+            final var task = ForkJoinTask.adapt(() -> findInSegment(doc, pattern, segStart, segEnd, subMonitor));
+            tasks.add(task);
+            if (segmentCount == 1) {
+               task.invoke();
+            } else {
+               pool.execute(task);
+            }
+         }
+      }
+
+      final var result = new ArrayList<Position>();
+      try {
+         int taskIndex = 0;
+         for (final Pattern pattern : patterns) {
+            int prevEnd = 0;
+            for (int i = 0; i < segmentCount; i++) {
+               var matches = tasks.get(taskIndex++).join();
+
+               // a match of the previous segment may extend into the current segment,
+               // in that case search the current segment sequentially after the previous match
+               if (!matches.isEmpty() && matches.get(0).getOffset() < prevEnd) {
+                  matches = findInSegment(doc, pattern, prevEnd, segments[i + 1], subMonitor);
+               }
+               if (!matches.isEmpty()) {
+                  final var lastMatch = matches.get(matches.size() - 1);
+                  prevEnd = lastMatch.getOffset() + lastMatch.getLength();
+               }
+               result.addAll(matches);
+               subMonitor.worked(1);
+            }
+         }
+      } catch (final CancellationException ex) {
+         throw new OperationCanceledException();
+      } catch (final RuntimeException ex) {
+         tasks.forEach(t -> t.cancel(false));
+         throw ex;
+      }
+
+      if (patterns.size() > 1) {
+         result.sort(POSITION_ORDER);
+         removeDuplicates(result);
+      }
+      return result;
+   }
+
+   /**
+    * Finds all matches starting in the range <code>[searchStart, segEnd)</code>. Matches may extend beyond the segment end.
+    */
+   private static List<Position> findInSegment(final IDocument doc, final Pattern pattern, final int searchStart, final int segEnd,
+         final IProgressMonitor monitor) {
+      final var result = new ArrayList<Position>();
+      if (searchStart >= segEnd)
+         return result;
+
+      final Matcher matcher = pattern.matcher(new DocumentCharSequence(doc));
+      matcher.useTransparentBounds(true); // allow look-arounds to see beyond the segment
+      matcher.useAnchoringBounds(false); // ^ and $ shall not match at segment boundaries
+      matcher.region(searchStart, matcher.regionEnd());
+
+      int matchCount = 0;
+      while (matcher.find()) {
+         final int start = matcher.start();
+         if (start >= segEnd) {
+            break;
+         }
+         if (matcher.end() > start) {
+            result.add(new Position(start, matcher.end() - start));
+         }
+         if (++matchCount % CANCEL_CHECK_INTERVAL == 0 && monitor.isCanceled())
+            throw new OperationCanceledException();
+      }
+      if (monitor.isCanceled())
+         throw new OperationCanceledException();
+      return result;
+   }
+
+   private static long getModificationStamp(final IDocument doc) {
+      return doc instanceof final IDocumentExtension4 docExt //
+            ? docExt.getModificationStamp()
+            : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+   }
+
+   /**
+    * @return the start offsets of all segments followed by the document length
+    */
+   private static int[] getSegmentBoundaries(final IDocument doc, final int segmentSize) {
+      final int docLength = doc.getLength();
+      final int maxSegments = (docLength + segmentSize - 1) / segmentSize;
+      final int[] boundaries = new int[maxSegments + 1];
+      int count = 1; // boundaries[0] = 0
+      try {
+         for (int i = 1; i < maxSegments; i++) {
+            final int lineOffset = doc.getLineOffset(doc.getLineOfOffset(i * segmentSize));
+            if (lineOffset > boundaries[count - 1]) {
+               boundaries[count++] = lineOffset;
+            }
+         }
+      } catch (final BadLocationException ex) {
+         throw new ConcurrentModificationException("Document was modified during search", ex);
+      }
+      boundaries[count++] = docLength;
+      return count == boundaries.length ? boundaries : Arrays.copyOf(boundaries, count);
+   }
+
+   private static void removeDuplicates(final List<Position> sortedPositions) {
+      int writeIndex = 0;
+      for (int readIndex = 0; readIndex < sortedPositions.size(); readIndex++) {
+         final var pos = sortedPositions.get(readIndex);
+         if (writeIndex == 0 || !pos.equals(sortedPositions.get(writeIndex - 1))) {
+            sortedPositions.set(writeIndex++, pos);
+         }
+      }
+      sortedPositions.subList(writeIndex, sortedPositions.size()).clear();
+   }
+}
@@ -8,15 +8,12 @@
 
 import java.nio.charset.Charset;
 
-import org.eclipse.core.filebuffers.FileBuffers;
 import org.eclipse.core.filebuffers.ITextFileBuffer;
-import org.eclipse.core.filebuffers.ITextFileBufferManager;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.jdt.annotation.Nullable;
 import org.eclipse.jface.text.IDocument;
 
-import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
 import de.sebthom.eclipse.commons.resources.Resources;
 
 /**
@@ -24,24 +21,33 @@
  */
 public abstract class Documents {
 
+   /**
+    * The buffer and the charset are cached per document, the charset is only re-resolved when the buffer's encoding changes.
+    */
    public static @Nullable Charset getCharset(final @Nullable IDocument document) {
       if (document == null)
          return null;
-      final ITextFileBuffer buf = getTextFileBuffer(document);
-      if (buf == null)
+      return TextFileBufferIndex.INSTANCE.getCharset(document);
+   }
+
+   /**
+    * @return the document of the text file buffer currently connected for the given file, e.g. to read the unsaved content of an
+    *         open editor, or null if no buffer is connected
+    */
+   public static @Nullable IDocument getDocument(final @Nullable IFile file) {
+      if (file == null)
          return null;
-      return getCharset(buf);
+      return getDocument(file.getFullPath());
    }
 
-   private static @Nullable Charset getCharset(final ITextFileBuffer textFileBuffer) {
-      try {
-         final String charsetName = textFileBuffer.getEncoding();
-         if (charsetName != null)
-            return Charset.forName(charsetName);
-      } catch (final Exception ex) {
-         EclipseCommonsPlugin.log().error(ex);
-      }
-      return null;
+   /**
+    * @param location a workspace path or, for files outside of the workspace, a file system path
+    * @return the document of the text file buffer currently connected for the given location or null if no buffer is connected
+    */
+   public static @Nullable IDocument getDocument(final @Nullable IPath location) {
+      if (location == null)
+         return null;
+      return TextFileBufferIndex.INSTANCE.getDocument(location);
    }
 
    public static @Nullable IFile getFile(final @Nullable IDocument document) {
@@ -62,12 +68,12 @@ public abstract class Documents {
       return buf.getLocation();
    }
 
+   /**
+    * The lookup is O(1), the connected buffers are indexed by document and location.
+    */
    public static @Nullable ITextFileBuffer getTextFileBuffer(final @Nullable IDocument document) {
       if (document == null)
          return null;
-      final ITextFileBufferManager bufMgr = FileBuffers.getTextFileBufferManager();
-      if (bufMgr == null)
-         return null;
-      return bufMgr.getTextFileBuffer(document);
+      return TextFileBufferIndex.INSTANCE.getTextFileBuffer(document);
    }
 }
@@ -6,54 +6,463 @@
  */
 package de.sebthom.eclipse.commons.text;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.ISynchronizable;
 import org.eclipse.jface.text.ITextSelection;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.jface.text.source.IAnnotationModelExtension2;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+import net.sf.jstuff.core.validation.Args;
 
 /**
  * @author Sebastian Thomschke
  */
 public class Markers {
 
+   public static final long DEFAULT_COALESCING_DELAY_MS = 100;
+
+   private record MarkersRequest(IAnnotationModel annoModel, Function<IProgressMonitor, @Nullable List<Position>> matchesProvider) {
+   }
+
+   /**
+    * Computes and applies the markers of the latest scheduled {@link MarkersRequest}. Requests scheduled while the job is waiting
+    * replace the pending request, requests scheduled while the job is running cancel the running computation.
+    */
+   private final class UpdateMarkersJob extends Job {
+      final AtomicReference<@Nullable MarkersRequest> pendingRequest = new AtomicReference<>();
+
+      UpdateMarkersJob() {
+         super("Updating markers");
+         setPriority(Job.INTERACTIVE);
+         setSystem(true);
+      }
+
+      @Override
+      public IStatus run(final @Nullable IProgressMonitor jobMonitor) {
+         final var monitor = jobMonitor == null ? new NullProgressMonitor() : jobMonitor;
+         final var request = pendingRequest.getAndSet(null);
+         if (request == null)
+            return Status.OK_STATUS;
+
+         final @Nullable List<Position> matches;
+         try {
+            matches = request.matchesProvider.apply(monitor);
+         } catch (final OperationCanceledException ex) {
+            return Status.CANCEL_STATUS;
+         }
+
+         final var newMarkers = new HashMap<Annotation, Position>(matches == null ? 0 : matches.size());
+         if (matches != null) {
+            for (final var matchPos : matches) {
+               newMarkers.put(new Annotation(markerId, false, null), matchPos);
+            }
+         }
+
+         synchronized (getLockObject(request.annoModel)) {
+            synchronized (Markers.this) {
+               // discard the result if a newer request arrived or the markers were set or removed in the meantime, checked under
+               // the same locks as the apply so a superseded result can never overwrite a newer one
+               if (monitor.isCanceled() || pendingRequest.get() != null)
+                  return Status.CANCEL_STATUS;
+               applyMarkers(request.annoModel, newMarkers);
+            }
+         }
+         return Status.OK_STATUS;
+      }
+   }
+
+   /**
+    * Re-scans the lines affected by a document change and updates only the markers within these lines.
+    */
+   private final class IncrementalUpdater implements IDocumentListener {
+      final IDocument doc;
+      final IAnnotationModel annoModel;
+      final Collection<Pattern> patterns;
+
+      IncrementalUpdater(final IDocument doc, final IAnnotationModel annoModel, final Collection<Pattern> patterns) {
+         this.doc = doc;
+         this.annoModel = annoModel;
+         this.patterns = patterns;
+      }
+
+      @Override
+      public void documentAboutToBeChanged(final DocumentEvent event) {
+      }
+
+      @Override
+      public void documentChanged(final DocumentEvent event) {
+         // the document lock is already held, acquire the annotation model lock before the Markers monitor as on all other threads
+         synchronized (getLockObject(annoModel)) {
+            synchronized (Markers.this) {
+               try {
+                  final var text = event.getText();
+                  final int changeEnd = event.getOffset() + (text == null ? 0 : text.length());
+
+                  // expand the dirty region to line boundaries including the adjacent lines to also catch matches spanning a line break
+                  int regionStart = doc.getLineOffset(Math.max(0, doc.getLineOfOffset(event.getOffset()) - 1));
+                  final var lastLine = doc.getLineInformation(Math.min(doc.getNumberOfLines() - 1, doc.getLineOfOffset(changeEnd) + 1));
+                  int regionEnd = lastLine.getOffset() + lastLine.getLength() + delimiterLength(doc, lastLine.getOffset());
+
+                  // collect existing markers in the dirty region and expand the region until it covers them completely
+                  final var existingMarkers = new HashMap<Position, Annotation>();
+                  final var staleMarkers = new ArrayList<Annotation>();
+                  final Set<Annotation> seenMarkers = Collections.newSetFromMap(new IdentityHashMap<>());
+                  int collectedStart, collectedEnd;
+                  do {
+                     collectedStart = regionStart;
+                     collectedEnd = regionEnd;
+                     for (final var marker : getMarkersInRange(collectedStart, collectedEnd)) {
+                        if (!seenMarkers.add(marker)) {
+                           continue;
+                        }
+                        final var pos = annoModel.getPosition(marker);
+                        if (pos == null || pos.isDeleted() || pos.length == 0 //
+                              || existingMarkers.putIfAbsent(new Position(pos.offset, pos.length), marker) != null) {
+                           staleMarkers.add(marker);
+                           continue;
+                        }
+                        regionStart = Math.min(regionStart, pos.offset);
+                        regionEnd = Math.max(regionEnd, pos.offset + pos.length);
+                     }
+                  } while (regionStart < collectedStart || regionEnd > collectedEnd);
+
+                  // re-scan the dirty region
+                  final var newMarkers = new HashMap<Annotation, Position>();
+                  final var foundPositions = new HashSet<Position>();
+                  final var chars = new DocumentCharSequence(doc);
+                  for (final Pattern pattern : patterns) {
+                     final var matcher = pattern.matcher(chars);
+                     matcher.useTransparentBounds(true);
+                     matcher.useAnchoringBounds(false);
+                     matcher.region(regionStart, chars.length());
+                     while (matcher.find() && matcher.start() < regionEnd) {
+                        if (matcher.end() == matcher.start()) {
+                           continue;
+                        }
+                        final var matchPos = new Position(matcher.start(), matcher.end() - matcher.start());
+                        if (!foundPositions.add(matchPos) || existingMarkers.remove(matchPos) != null) {
+                           continue; // duplicate match or marker already exists
+                        }
+                        newMarkers.put(new Annotation(markerId, false, null), matchPos);
+                     }
+                  }
+
+                  // markers left in existingMarkers are not matched anymore
+                  staleMarkers.addAll(existingMarkers.values());
+                  if (!staleMarkers.isEmpty() || !newMarkers.isEmpty()) {
+                     final var markersToRemove = staleMarkers.toArray(Annotation[]::new);
+                     replaceMarkers(annoModel, markersToRemove, newMarkers);
+                  }
+               } catch (final BadLocationException ex) {
+                  EclipseCommonsPlugin.log().debug(ex);
+               }
+            }
+         }
+      }
+
+      private List<Annotation> getMarkersInRange(final int start, final int end) {
+         final var result = new ArrayList<Annotation>();
+         if (annoModel instanceof final IAnnotationModelExtension2 annoModelExt2) {
+            // + 1 to include markers collapsed to an empty position at the end of the range
+            final var it = annoModelExt2.getAnnotationIterator(start, end - start + 1, true, true);
+            while (it.hasNext()) {
+               final var anno = it.next();
+               if (markerId.equals(anno.getType()) && isActiveMarker(anno)) {
+                  result.add(anno);
+               }
+            }
+         } else {
+            for (final var marker : activeMarkers) {
+               final var pos = annoModel.getPosition(marker);
+               if (pos == null || pos.isDeleted() || pos.offset <= end && pos.offset + pos.length >= start) {
+                  result.add(marker);
+               }
+            }
+         }
+         return result;
+      }
+   }
+
+   /**
+    * Position of an active marker. Positions deleted by a document change are not updated anymore and would break the sort order
+    * of {@link Markers#activeMarkerPositions}, therefore deletions are tracked to purge them lazily from the index.
+    */
+   private final class MarkerPosition extends Position {
+      MarkerPosition(final int offset, final int length) {
+         super(offset, length);
+      }
+
+      @Override
+      public void delete() {
+         super.delete();
+         hasDeletedMarkerPositions = true;
+      }
+   }
+
+   private static int delimiterLength(final IDocument doc, final int offset) throws BadLocationException {
+      final var delimiter = doc.getLineDelimiter(doc.getLineOfOffset(offset));
+      return delimiter == null ? 0 : delimiter.length();
+   }
+
    private final String markerId;
+
+   /** the active markers sorted by offset */
    private Annotation[] activeMarkers = new Annotation[0];
-   private @Nullable IAnnotationModel activeMarkersAnnoModel;
+
+   /**
+    * The positions of {@link #activeMarkers} as stored in the annotation model. They are updated in place by the document on edits,
+    * which shifts offsets but preserves their relative order, so the array stays sorted without re-indexing.
+    */
+   private Position[] activeMarkerPositions = new Position[0];
+
+   /**
+    * For each index of {@link #activeMarkerPositions} the index of the position with the greatest end offset up to and including that
+    * index. Document edits map the end offsets of all positions with the same monotonic function, so the order of the end offsets
+    * and therefore this array stay valid until positions are added or removed.
+    */
+   private int[] activeMarkerMaxEndIndexes = new int[0];
+   private volatile boolean hasDeletedMarkerPositions;
+   private volatile @Nullable IAnnotationModel activeMarkersAnnoModel;
+   private @Nullable IncrementalUpdater incrementalUpdater;
+   private final UpdateMarkersJob updateMarkersJob = new UpdateMarkersJob();
+   private volatile long coalescingDelayMS = DEFAULT_COALESCING_DELAY_MS;
 
    public Markers(final String markerId) {
       this.markerId = markerId;
    }
 
-   private boolean removeMarkerAt(final int offset, final int length) {
-      final var activeMarkers = this.activeMarkers;
+   /**
+    * Replaces all active markers with the given markers using a single {@link IAnnotationModelExtension#replaceAnnotations} call.
+    */
+   private synchronized void applyMarkers(final IAnnotationModel annoModel, final Map<Annotation, Position> newMarkers) {
+      stopIncrementalUpdates();
+      if (activeMarkersAnnoModel != annoModel) {
+         removeActiveMarkers();
+         activeMarkersAnnoModel = annoModel;
+      }
+      replaceMarkers(annoModel, activeMarkers, newMarkers);
+   }
+
+   /**
+    * Cancels any markers update scheduled via one of the scheduleMarkers methods.
+    */
+   public void cancelScheduledMarkers() {
+      updateMarkersJob.pendingRequest.set(null);
+      updateMarkersJob.cancel();
+   }
+
+   /**
+    * @return the time window in milliseconds in which requests scheduled via one of the scheduleMarkers methods are coalesced
+    */
+   public long getCoalescingDelay() {
+      return coalescingDelayMS;
+   }
+
+   /**
+    * @return a copy of the position of the active marker covering the given offset or null if none. If markers overlap, the one
+    *         starting closest before the given offset is returned.
+    */
+   public @Nullable Position getMarkerAt(final int offset) {
+      synchronized (getLockObject(activeMarkersAnnoModel)) {
+         synchronized (this) {
+            final int index = indexOfFirstMarkerAtOrAfter(offset + 1);
+            final var positions = activeMarkerPositions;
+            final var maxEndIndexes = activeMarkerMaxEndIndexes;
+            // all markers starting at or before the offset are candidates, a marker starting further before the offset may be
+            // longer than the markers in between and still cover the offset
+            for (int i = index - 1; i >= 0; i--) {
+               final var maxEndPos = positions[maxEndIndexes[i]];
+               if (maxEndPos.offset + maxEndPos.length <= offset)
+                  return null; // no marker up to this index reaches the offset
+               final var pos = positions[i];
+               if (offset < pos.offset + pos.length && isValidMarker(i))
+                  return new Position(pos.offset, pos.length);
+            }
+            return null;
+         }
+      }
+   }
+
+   /**
+    * @return a copy of the position of the first active marker starting after the given offset or null if none
+    */
+   public @Nullable Position getNextMarker(final int offset) {
+      synchronized (getLockObject(activeMarkersAnnoModel)) {
+         synchronized (this) {
+            final int index = indexOfFirstMarkerAtOrAfter(offset + 1);
+            final var positions = activeMarkerPositions;
+            for (int i = index; i < positions.length; i++) {
+               if (isValidMarker(i))
+                  return new Position(positions[i].offset, positions[i].length);
+            }
+            return null;
+         }
+      }
+   }
+
+   /**
+    * @return a copy of the position of the last active marker starting before the given offset or null if none
+    */
+   public @Nullable Position getPreviousMarker(final int offset) {
+      synchronized (getLockObject(activeMarkersAnnoModel)) {
+         synchronized (this) {
+            final int index = indexOfFirstMarkerAtOrAfter(offset);
+            final var positions = activeMarkerPositions;
+            for (int i = index - 1; i >= 0; i--) {
+               if (isValidMarker(i))
+                  return new Position(positions[i].offset, positions[i].length);
+            }
+            return null;
+         }
+      }
+   }
+
+   /**
+    * Returns the lock to acquire before the monitor of this instance when accessing the given annotation model.
+    * <p>
+    * Document listeners like {@link IncrementalUpdater} are notified while the document lock is held, which for synchronized
+    * documents is also the lock object of their annotation model, and the annotation model acquires its lock object on
+    * modifications. Acquiring the model's lock object before this monitor on all threads ensures a consistent lock order.
+    */
+   private Object getLockObject(final @Nullable IAnnotationModel annoModel) {
+      if (annoModel instanceof final ISynchronizable synchronizable) {
+         final var lockObject = synchronizable.getLockObject();
+         if (lockObject != null)
+            return lockObject;
+      }
+      return this;
+   }
+
+   /**
+    * @return the index of the first active marker with an offset greater than or equal to the given offset
+    */
+   private int indexOfFirstMarkerAtOrAfter(final int offset) {
+      purgeDeletedMarkers();
+      final var positions = activeMarkerPositions;
+      int low = 0;
+      int high = positions.length;
+      while (low < high) {
+         final int mid = low + high >>> 1;
+         if (positions[mid].offset < offset) {
+            low = mid + 1;
+         } else {
+            high = mid;
+         }
+      }
+      return low;
+   }
+
+   private synchronized boolean isActiveMarker(final Annotation anno) {
+      final var activeMarkersAnnoModel = this.activeMarkersAnnoModel;
+      if (activeMarkersAnnoModel == null)
+         return false;
+      final var pos = activeMarkersAnnoModel.getPosition(anno);
+      if (pos == null)
+         return false;
+
+      final int index = indexOfFirstMarkerAtOrAfter(pos.offset);
+      final var positions = activeMarkerPositions;
+      for (int i = index; i < positions.length && positions[i].offset == pos.offset; i++) {
+         if (activeMarkers[i] == anno)
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * @return false if the marker at the given index was deleted by a document change or removed from the annotation model
+    */
+   private boolean isValidMarker(final int index) {
       final var activeMarkersAnnoModel = this.activeMarkersAnnoModel;
+      final var pos = activeMarkerPositions[index];
+      return activeMarkersAnnoModel != null //
+            && !pos.isDeleted() //
+            && pos.length > 0 //
+            && activeMarkersAnnoModel.getPosition(activeMarkers[index]) != null;
+   }
 
-      if (activeMarkersAnnoModel == null || activeMarkers.length == 0)
+   private boolean removeMarkerAt(final int offset, final int length) {
+      final var activeMarkersAnnoModel = this.activeMarkersAnnoModel;
+      if (activeMarkersAnnoModel == null)
          return false;
 
-      for (final var activeMarker : activeMarkers) {
-         final var markerPos = activeMarkersAnnoModel.getPosition(activeMarker);
-         if (markerPos == null) {
-            continue;
+      synchronized (getLockObject(activeMarkersAnnoModel)) {
+         synchronized (this) {
+            if (activeMarkersAnnoModel != this.activeMarkersAnnoModel)
+               return false;
+
+            final int index = indexOfFirstMarkerAtOrAfter(offset);
+            final var positions = activeMarkerPositions;
+            for (int i = index; i < positions.length && positions[i].offset == offset; i++) {
+               if (length == positions[i].length && isValidMarker(i)) {
+                  activeMarkersAnnoModel.removeAnnotation(activeMarkers[i]);
+                  removeActiveMarkerAt(i);
+                  return true;
+               }
+            }
+            return false;
          }
-         if (offset == markerPos.getOffset() //
-               && length == markerPos.getLength()) {
-            activeMarkersAnnoModel.removeAnnotation(activeMarker);
-            return true;
+      }
+   }
+
+   /**
+    * Removes markers whose positions were deleted by document changes from the index. The annotation model removes their annotations
+    * itself.
+    */
+   private synchronized void purgeDeletedMarkers() {
+      if (!hasDeletedMarkerPositions)
+         return;
+      hasDeletedMarkerPositions = false;
+
+      final var positions = activeMarkerPositions;
+      int newLength = 0;
+      for (int i = 0; i < positions.length; i++) {
+         if (!positions[i].isDeleted()) {
+            activeMarkers[newLength] = activeMarkers[i];
+            positions[newLength++] = positions[i];
          }
       }
-      return false;
+      setActiveMarkers(Arrays.copyOf(activeMarkers, newLength), Arrays.copyOf(positions, newLength));
+   }
+
+   private void removeActiveMarkerAt(final int index) {
+      final int newLength = activeMarkers.length - 1;
+      final var newActiveMarkers = new Annotation[newLength];
+      final var newActiveMarkerPositions = new Position[newLength];
+      System.arraycopy(activeMarkers, 0, newActiveMarkers, 0, index);
+      System.arraycopy(activeMarkers, index + 1, newActiveMarkers, index, newLength - index);
+      System.arraycopy(activeMarkerPositions, 0, newActiveMarkerPositions, 0, index);
+      System.arraycopy(activeMarkerPositions, index + 1, newActiveMarkerPositions, index, newLength - index);
+      setActiveMarkers(newActiveMarkers, newActiveMarkerPositions);
    }
 
    public boolean removeMarkerAt(final ITextSelection pos) {
@@ -65,6 +474,16 @@ public boolean removeMarkerAt(final Position pos) {
    }
 
    public void removeMarkers() {
+      synchronized (getLockObject(activeMarkersAnnoModel)) {
+         synchronized (this) {
+            cancelScheduledMarkers();
+            stopIncrementalUpdates();
+            removeActiveMarkers();
+         }
+      }
+   }
+
+   private void removeActiveMarkers() {
       final var activeMarkersAnnoModel = this.activeMarkersAnnoModel;
       if (activeMarkersAnnoModel != null && activeMarkers.length > 0) {
          if (activeMarkersAnnoModel instanceof final IAnnotationModelExtension annoModelEx) {
@@ -75,6 +494,155 @@ public void removeMarkers() {
             }
          }
       }
+      setActiveMarkers(new Annotation[0], new Position[0]);
+   }
+
+   /**
+    * Replaces the given markers with the new markers using a single {@link IAnnotationModelExtension#replaceAnnotations} call if
+    * supported by the annotation model and updates the sorted {@link #activeMarkers} index accordingly.
+    */
+   private synchronized void replaceMarkers(final IAnnotationModel annoModel, final Annotation[] markersToRemove,
+         final Map<Annotation, Position> markersToAdd) {
+      purgeDeletedMarkers();
+
+      final var newMarkers = new HashMap<Annotation, Position>(markersToAdd.size());
+      markersToAdd.forEach((marker, pos) -> newMarkers.put(marker, new MarkerPosition(pos.offset, pos.length)));
+      if (annoModel instanceof final IAnnotationModelExtension annoModelExt) {
+         annoModelExt.replaceAnnotations(markersToRemove, newMarkers);
+      } else {
+         for (final Annotation marker : markersToRemove) {
+            annoModel.removeAnnotation(marker);
+         }
+         for (final Map.Entry<Annotation, Position> entry : newMarkers.entrySet()) {
+            annoModel.addAnnotation(entry.getKey(), entry.getValue());
+         }
+      }
+
+      // merge the remaining markers and the new markers into a new sorted index
+      final Set<Annotation> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+      Collections.addAll(removed, markersToRemove);
+
+      final var added = new ArrayList<Map.Entry<Annotation, Position>>(newMarkers.size());
+      for (final Map.Entry<Annotation, Position> entry : newMarkers.entrySet()) {
+         final var marker = entry.getKey();
+         final var pos = annoModel.getPosition(marker);
+         added.add(Map.entry(marker, pos == null ? entry.getValue() : pos));
+      }
+      added.sort(Comparator.comparingInt(entry -> entry.getValue().offset));
+
+      final var oldActiveMarkers = activeMarkers;
+      final var oldActiveMarkerPositions = activeMarkerPositions;
+      final int maxLength = oldActiveMarkers.length + added.size();
+      final var newActiveMarkers = new Annotation[maxLength];
+      final var newActiveMarkerPositions = new Position[maxLength];
+      int oldIndex = 0;
+      int addedIndex = 0;
+      int newLength = 0;
+      while (oldIndex < oldActiveMarkers.length || addedIndex < added.size()) {
+         if (oldIndex < oldActiveMarkers.length && removed.contains(oldActiveMarkers[oldIndex])) {
+            oldIndex++;
+            continue;
+         }
+         if (addedIndex >= added.size() //
+               || oldIndex < oldActiveMarkers.length //
+                     && oldActiveMarkerPositions[oldIndex].offset <= added.get(addedIndex).getValue().offset) {
+            newActiveMarkers[newLength] = oldActiveMarkers[oldIndex];
+            newActiveMarkerPositions[newLength++] = oldActiveMarkerPositions[oldIndex++];
+         } else {
+            final var entry = added.get(addedIndex++);
+            newActiveMarkers[newLength] = entry.getKey();
+            newActiveMarkerPositions[newLength++] = entry.getValue();
+         }
+      }
+      setActiveMarkers(newLength == maxLength ? newActiveMarkers : Arrays.copyOf(newActiveMarkers, newLength), //
+         newLength == maxLength ? newActiveMarkerPositions : Arrays.copyOf(newActiveMarkerPositions, newLength));
+   }
+
+   /**
+    * Asynchronously searches the whole document for the given patterns in a background job and sets markers for all matches.
+    *
+    * @see #scheduleMarkers(IAnnotationModel, Function)
+    */
+   public void scheduleMarkers(final IAnnotationModel annoModel, final IDocument doc, final Collection<Pattern> patterns) {
+      final var patternsCopy = List.copyOf(patterns);
+      scheduleMarkers(annoModel, monitor -> DocumentSearcher.findAll(doc, patternsCopy, monitor));
+   }
+
+   /**
+    * Asynchronously computes the marker positions via the given provider in a background job and sets the markers.
+    * <p>
+    * Requests arriving within the {@link #getCoalescingDelay() coalescing delay} are coalesced, i.e. only the latest request is
+    * processed. A request arriving while a previous request is being computed cancels the superseded computation via its
+    * {@link IProgressMonitor}. The result is applied using a single {@link IAnnotationModelExtension#replaceAnnotations} call.
+    *
+    * @param matchesProvider computes the marker positions, should regularly check {@link IProgressMonitor#isCanceled()}
+    */
+   public void scheduleMarkers(final IAnnotationModel annoModel,
+         final Function<IProgressMonitor, @Nullable List<Position>> matchesProvider) {
+      final var job = updateMarkersJob;
+      job.pendingRequest.set(new MarkersRequest(annoModel, matchesProvider));
+      switch (job.getState()) {
+         case Job.WAITING, Job.SLEEPING:
+            break; // pending request will be picked up when the job runs
+         case Job.RUNNING:
+            job.cancel(); // cancel superseded computation, the job is re-run with the pending request
+            job.schedule(coalescingDelayMS);
+            break;
+         default:
+            job.schedule(coalescingDelayMS);
+      }
+   }
+
+   /**
+    * Asynchronously sets the markers in a background job.
+    *
+    * @see #scheduleMarkers(IAnnotationModel, Function)
+    */
+   public void scheduleMarkers(final IAnnotationModel annoModel, final @Nullable List<Position> matches) {
+      scheduleMarkers(annoModel, monitor -> matches);
+   }
+
+   private void setActiveMarkers(final Annotation[] markers, final Position[] positions) {
+      final var maxEndIndexes = new int[positions.length];
+      int maxEndIndex = 0;
+      for (int i = 0; i < positions.length; i++) {
+         final var maxEndPos = positions[maxEndIndex];
+         if (positions[i].offset + positions[i].length > maxEndPos.offset + maxEndPos.length) {
+            maxEndIndex = i;
+         }
+         maxEndIndexes[i] = maxEndIndex;
+      }
+      activeMarkers = markers;
+      activeMarkerPositions = positions;
+      activeMarkerMaxEndIndexes = maxEndIndexes;
+   }
+
+   /**
+    * @param delayMS the time window in milliseconds in which requests scheduled via one of the scheduleMarkers methods are coalesced
+    */
+   public void setCoalescingDelay(final long delayMS) {
+      coalescingDelayMS = Args.notNegative("delayMS", delayMS);
+   }
+
+   /**
+    * Searches the whole document for the given patterns, sets markers for all matches and afterwards keeps the markers up-to-date
+    * incrementally while the document is edited, until {@link #removeMarkers()} or one of the setMarkers methods is called.
+    * <p>
+    * On each document change only the affected lines are re-scanned and only markers that actually changed are replaced in the
+    * annotation model. Matches spanning more than one line break outside of the changed lines are not detected incrementally.
+    * <p>
+    * Must be called from the thread that modifies the document, usually the UI thread.
+    */
+   public void setMarkers(final IAnnotationModel annoModel, final IDocument doc, final Collection<Pattern> patterns) {
+      final var matches = DocumentSearcher.findAll(doc, patterns, null);
+      synchronized (getLockObject(annoModel)) {
+         synchronized (this) {
+            setMarkers(annoModel, matches);
+
+            final var incrementalUpdater = this.incrementalUpdater = new IncrementalUpdater(doc, annoModel, List.copyOf(patterns));
+            doc.addDocumentListener(incrementalUpdater);
+         }
+      }
    }
 
    public void setMarkers(final IAnnotationModel annoModel, final @Nullable List<Position> matches) {
@@ -82,35 +650,41 @@ public void setMarkers(final IAnnotationModel annoModel, final @Nullable List<Po
    }
 
    public void setMarkers(final IAnnotationModel annoModel, final @Nullable List<Position> matches, final IProgressMonitor monitor) {
-      if (activeMarkersAnnoModel != null) {
-         removeMarkers();
+      final Map<Annotation, Position> newMarkers = new HashMap<>(matches == null ? 0 : matches.size());
+      if (matches != null) {
+         for (final var matchPos : matches) {
+            newMarkers.put(new Annotation(markerId, false, null), matchPos);
+         }
       }
-      activeMarkersAnnoModel = annoModel;
 
-      if (matches == null || matches.isEmpty())
-         return;
+      synchronized (getLockObject(annoModel)) {
+         synchronized (this) {
+            cancelScheduledMarkers();
+            stopIncrementalUpdates();
+            removeActiveMarkers();
+            activeMarkersAnnoModel = annoModel;
 
-      final var job = new Job("Setting markers") {
-         @Override
-         public IStatus run(final @Nullable IProgressMonitor monitor) {
-            final Map<Annotation, Position> newMarkers = new HashMap<>(matches.size());
-            for (final var matchPos : matches) {
-               newMarkers.put(new Annotation(markerId, false, null), matchPos);
-            }
+            if (newMarkers.isEmpty())
+               return;
 
-            if (annoModel instanceof final IAnnotationModelExtension annoModelExt) {
-               annoModelExt.replaceAnnotations(activeMarkers, newMarkers);
-            } else {
-               removeMarkers();
-               for (final Map.Entry<Annotation, Position> entry : newMarkers.entrySet()) {
-                  annoModel.addAnnotation(entry.getKey(), entry.getValue());
+            final var job = new Job("Setting markers") {
+               @Override
+               public IStatus run(final @Nullable IProgressMonitor monitor) {
+                  replaceMarkers(annoModel, activeMarkers, newMarkers);
+                  return Status.OK_STATUS;
                }
-            }
-            activeMarkers = newMarkers.keySet().toArray(Annotation[]::new);
-            return Status.OK_STATUS;
+            };
+            job.setPriority(Job.INTERACTIVE);
+            job.run(monitor);
          }
-      };
-      job.setPriority(Job.INTERACTIVE);
-      job.run(monitor);
+      }
+   }
+
+   private void stopIncrementalUpdates() {
+      final var incrementalUpdater = this.incrementalUpdater;
+      if (incrementalUpdater != null) {
+         incrementalUpdater.doc.removeDocumentListener(incrementalUpdater);
+         this.incrementalUpdater = null;
+      }
    }
 }
@@ -0,0 +1,265 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.annotation.Nullable;
+import org.eclipse.jface.text.IDocument;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+
+/**
+ * Bidirectional index of the connected {@link ITextFileBuffer}s by document and by location, maintained via an
+ * {@link IFileBufferListener}, which is unregistered when this plugin stops. Also caches the buffers' resolved {@link Charset}s.
+ * <p>
+ * {@link org.eclipse.core.filebuffers.ITextFileBufferManager#getTextFileBuffer(IDocument)} iterates over all connected buffers,
+ * whereas lookups via this index are O(1) in both directions. The charset is only re-resolved when a buffer's encoding changes.
+ *
+ * @author Sebastian Thomschke
+ */
+final class TextFileBufferIndex implements IFileBufferListener {
+
+   private record Entry(IDocument doc, ITextFileBuffer buffer, @Nullable IPath location, @Nullable String encoding,
+         @Nullable Charset charset) {
+   }
+
+   static final TextFileBufferIndex INSTANCE = new TextFileBufferIndex();
+
+   /** entries are removed when the buffer is disposed, so the documents can be referenced strongly */
+   private final Map<ITextFileBuffer, Entry> byBuffer = new IdentityHashMap<>();
+   private final Map<IDocument, Entry> byDocument = new IdentityHashMap<>();
+   private final Map<IPath, Entry> byLocation = new HashMap<>();
+
+   /** last looked-up entry to avoid map lookups in tight loops over the same document */
+   private volatile @Nullable Entry lastEntry;
+   private volatile boolean isIndexing;
+
+   private TextFileBufferIndex() {
+   }
+
+   private synchronized void add(final ITextFileBuffer buffer, final @Nullable IPath location) {
+      remove(buffer);
+      final var entry = new Entry(buffer.getDocument(), buffer, location, null, null);
+      byBuffer.put(buffer, entry);
+      byDocument.put(entry.doc, entry);
+      if (location != null) {
+         byLocation.put(location, entry);
+      }
+   }
+
+   @Override
+   public void bufferContentAboutToBeReplaced(final IFileBuffer buffer) {
+   }
+
+   @Override
+   public void bufferContentReplaced(final IFileBuffer buffer) {
+   }
+
+   @Override
+   public void bufferCreated(final IFileBuffer buffer) {
+      if (buffer instanceof final ITextFileBuffer textBuffer) {
+         add(textBuffer, textBuffer.getLocation());
+      }
+   }
+
+   @Override
+   public void bufferDisposed(final IFileBuffer buffer) {
+      if (buffer instanceof final ITextFileBuffer textBuffer) {
+         remove(textBuffer);
+      }
+   }
+
+   @Override
+   public void dirtyStateChanged(final IFileBuffer buffer, final boolean isDirty) {
+   }
+
+   /**
+    * Registers the listener and indexes the already connected buffers on first use.
+    *
+    * @return false if no buffer manager is available
+    */
+   private boolean ensureIndexing() {
+      if (isIndexing)
+         return true;
+
+      final var bufMgr = FileBuffers.getTextFileBufferManager();
+      if (bufMgr == null)
+         return false;
+
+      synchronized (this) {
+         if (isIndexing)
+            return true;
+         // register the listener before taking the snapshot so no buffer is missed, duplicates are ignored by add()
+         bufMgr.addFileBufferListener(this);
+         for (final var buffers : new IFileBuffer[][] {bufMgr.getFileBuffers(), bufMgr.getFileStoreFileBuffers()}) {
+            for (final var buffer : buffers) {
+               if (buffer instanceof final ITextFileBuffer textBuffer) {
+                  add(textBuffer, textBuffer.getLocation());
+               }
+            }
+         }
+         isIndexing = true;
+      }
+      try {
+         EclipseCommonsPlugin.get().addStopListener(this::stopIndexing);
+      } catch (final IllegalStateException ex) {
+         // plugin not active, e.g. when used outside of an OSGi runtime
+      }
+      return true;
+   }
+
+   /**
+    * @return the charset of the buffer backing the given document or null if the document is not backed by a buffer
+    */
+   @Nullable Charset getCharset(final IDocument doc) {
+      final var entry = getEntry(doc);
+      if (entry == null) {
+         final var buffer = getTextFileBuffer(doc);
+         return buffer == null ? null : toCharset(buffer.getEncoding());
+      }
+
+      final String encoding = entry.buffer.getEncoding();
+      if (Objects.equals(encoding, entry.encoding))
+         return entry.charset;
+
+      final var charset = toCharset(encoding);
+      final var newEntry = new Entry(entry.doc, entry.buffer, entry.location, encoding, charset);
+      synchronized (this) {
+         if (byDocument.get(doc) == entry) {
+            byBuffer.put(entry.buffer, newEntry);
+            byDocument.put(doc, newEntry);
+            final var location = entry.location;
+            if (location != null) {
+               byLocation.put(location, newEntry);
+            }
+            lastEntry = newEntry;
+         }
+      }
+      return charset;
+   }
+
+   /**
+    * @return the document of the buffer connected for the given location or null if no buffer is connected
+    */
+   @Nullable IDocument getDocument(final IPath location) {
+      if (ensureIndexing()) {
+         synchronized (this) {
+            final var entry = byLocation.get(location);
+            return entry == null ? null : entry.doc;
+         }
+      }
+      return null;
+   }
+
+   private @Nullable Entry getEntry(final IDocument doc) {
+      final var lastEntry = this.lastEntry;
+      if (lastEntry != null && lastEntry.doc == doc)
+         return lastEntry;
+
+      if (!ensureIndexing())
+         return null;
+
+      synchronized (this) {
+         final var entry = byDocument.get(doc);
+         if (entry != null) {
+            this.lastEntry = entry;
+         }
+         return entry;
+      }
+   }
+
+   /**
+    * @return the buffer backing the given document or null if the document is not backed by a buffer
+    */
+   @Nullable ITextFileBuffer getTextFileBuffer(final IDocument doc) {
+      if (ensureIndexing()) {
+         final var entry = getEntry(doc);
+         return entry == null ? null : entry.buffer;
+      }
+      final var bufMgr = FileBuffers.getTextFileBufferManager();
+      return bufMgr == null ? null : bufMgr.getTextFileBuffer(doc);
+   }
+
+   /**
+    * Removes the entry by the buffer itself, as the buffer's document may already be replaced or unavailable when it is disposed.
+    */
+   private synchronized void remove(final ITextFileBuffer buffer) {
+      final var entry = byBuffer.remove(buffer);
+      if (entry == null)
+         return;
+      if (byDocument.get(entry.doc) == entry) {
+         byDocument.remove(entry.doc);
+      }
+      final var location = entry.location;
+      if (location != null && byLocation.get(location) == entry) {
+         byLocation.remove(location);
+      }
+      if (lastEntry == entry) {
+         lastEntry = null;
+      }
+   }
+
+   @Override
+   public void stateChangeFailed(final IFileBuffer buffer) {
+   }
+
+   @Override
+   public void stateChanging(final IFileBuffer buffer) {
+   }
+
+   @Override
+   public void stateValidationChanged(final IFileBuffer buffer, final boolean isStateValidated) {
+   }
+
+   private void stopIndexing() {
+      synchronized (this) {
+         if (!isIndexing)
+            return;
+         isIndexing = false;
+         byBuffer.clear();
+         byDocument.clear();
+         byLocation.clear();
+         lastEntry = null;
+      }
+      final var bufMgr = FileBuffers.getTextFileBufferManager();
+      if (bufMgr != null) {
+         bufMgr.removeFileBufferListener(this);
+      }
+   }
+
+   private static @Nullable Charset toCharset(final @Nullable String encoding) {
+      if (encoding == null)
+         return null;
+      try {
+         return Charset.forName(encoding);
+      } catch (final Exception ex) {
+         EclipseCommonsPlugin.log().error(ex);
+         return null;
+      }
+   }
+
+   @Override
+   public void underlyingFileDeleted(final IFileBuffer buffer) {
+   }
+
+   @Override
+   public void underlyingFileMoved(final IFileBuffer buffer, final IPath path) {
+      if (buffer instanceof final ITextFileBuffer textBuffer) {
+         add(textBuffer, path);
+      }
+   }
+}
@@ -0,0 +1,59 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.localization;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class MessagesIndexTest {
+
+   static final class Messages {
+      public static @Nullable String Greeting;
+      public static Object Farewell = "Bye";
+      private static @Nullable String Hidden;
+   }
+
+   @TempDir
+   Path tempDir;
+
+   @Test
+   void testSaveLoadApply() {
+      final var file = tempDir.resolve("messages/test.idx");
+
+      final var index = new MessagesIndex(file, "key-1");
+      assertFalse(index.load());
+      index.values.put("Greeting", "Hällo \"World\"");
+      index.values.put("Farewell", "Good bye");
+      index.values.put("Hidden", "");
+      index.unusedProperties.add("Unused");
+      index.uninitializedFields.add("Missing");
+      index.save();
+
+      final var loaded = new MessagesIndex(file, "key-1");
+      assertTrue(loaded.load());
+      assertEquals(index.values, loaded.values);
+      assertEquals(List.of("Unused"), loaded.unusedProperties);
+      assertEquals(List.of("Missing"), loaded.uninitializedFields);
+
+      loaded.apply(Messages.class);
+      assertEquals("Hällo \"World\"", Messages.Greeting);
+      assertEquals("Good bye", Messages.Farewell);
+      assertEquals("", Messages.Hidden);
+
+      assertFalse(new MessagesIndex(file, "key-2").load());
+      assertFalse(new MessagesIndex().load());
+   }
+}
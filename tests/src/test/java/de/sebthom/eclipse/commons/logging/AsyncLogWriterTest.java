@@ -0,0 +1,106 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.junit.jupiter.api.Test;
+
+import de.sebthom.eclipse.commons.logging.PluginLogger.OverflowPolicy;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class AsyncLogWriterTest {
+
+   private static final String PLUGIN_ID = "de.sebthom.eclipse.commons.tests";
+
+   /**
+    * @param logged receives the logged statuses
+    * @param blocker logging blocks until the latch is released
+    */
+   private static AsyncLogWriter.Target newTarget(final List<IStatus> logged, final CountDownLatch blocker) {
+      return (status, timestamp, threadName) -> {
+         try {
+            blocker.await();
+         } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+         }
+         logged.add(status);
+      };
+   }
+
+   @Test
+   void testOverflowPolicies() throws InterruptedException {
+      for (final var policy : OverflowPolicy.values()) {
+         final var logged = new CopyOnWriteArrayList<IStatus>();
+         final var blocker = new CountDownLatch(1);
+         final var writer = new AsyncLogWriter(PLUGIN_ID, newTarget(logged, blocker), 16, policy);
+
+         // the writer thread is blocked by the first status, so the buffer fills up
+         final int count = policy == OverflowPolicy.BLOCK ? 16 : 100;
+         for (int i = 0; i < count; i++) {
+            assertTrue(writer.offer(new Status(i % 5 == 0 ? IStatus.ERROR : IStatus.INFO, PLUGIN_ID, "msg" + i)));
+         }
+         blocker.countDown();
+         assertTrue(writer.flush(5_000));
+         writer.stop(5_000);
+
+         final var messages = logged.stream().filter(s -> s.getMessage().startsWith("msg")).toList();
+         switch (policy) {
+            case BLOCK:
+               assertEquals(count, messages.size());
+               assertEquals(0, writer.getDroppedCount());
+               break;
+            case DROP:
+               assertTrue(messages.size() <= 17, policy + ": " + messages.size());
+               assertEquals(count - messages.size(), writer.getDroppedCount());
+               assertTrue(logged.get(logged.size() - 1).getMessage().contains("dropped"));
+               break;
+            case SAMPLE:
+               // once the buffer is half full, only errors and every n-th other status are accepted
+               assertEquals(count - messages.size(), writer.getDroppedCount());
+               final var errors = messages.stream().filter(s -> s.getSeverity() == IStatus.ERROR).count();
+               assertTrue(errors > 4, policy + ": " + messages);
+               assertTrue(messages.size() - errors < 8 + count / AsyncLogWriter.SAMPLE_RATE, policy + ": " + messages);
+               break;
+         }
+
+         // statuses offered after stopping must be logged by the caller
+         assertFalse(writer.offer(Status.info("late")));
+      }
+   }
+
+   @Test
+   void testConcurrentProducers() throws InterruptedException {
+      final var logged = new CopyOnWriteArrayList<IStatus>();
+      final var writer = new AsyncLogWriter(PLUGIN_ID, newTarget(logged, new CountDownLatch(0)), 64,
+         OverflowPolicy.BLOCK);
+
+      final var threads = new Thread[8];
+      for (int t = 0; t < threads.length; t++) {
+         threads[t] = new Thread(() -> {
+            for (int i = 0; i < 1_000; i++) {
+               writer.offer(Status.info("msg"));
+            }
+         });
+         threads[t].start();
+      }
+      for (final var thread : threads) {
+         thread.join(TimeUnit.SECONDS.toMillis(10));
+      }
+      writer.stop(5_000);
+      assertEquals(8_000, logged.size());
+   }
+}
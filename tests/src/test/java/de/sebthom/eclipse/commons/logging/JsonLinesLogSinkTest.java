@@ -0,0 +1,90 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class JsonLinesLogSinkTest {
+
+   private static final String PLUGIN_ID = "de.sebthom.eclipse.commons.tests";
+
+   @TempDir
+   Path tempDir;
+
+   @Test
+   void testRotation() throws IOException {
+      final var file = tempDir.resolve("logs/log.jsonl");
+      try (var sink = new JsonLinesLogSink(file, 1_000, 2)) {
+         for (int i = 0; i < 100; i++) {
+            sink.writeStatus(0, PLUGIN_ID, "main", new Status(IStatus.INFO, PLUGIN_ID, "message " + i));
+         }
+      }
+
+      assertTrue(Files.size(file) <= 1_000);
+      assertTrue(Files.exists(tempDir.resolve("logs/log.jsonl.1")));
+      assertTrue(Files.exists(tempDir.resolve("logs/log.jsonl.2")));
+      assertFalse(Files.exists(tempDir.resolve("logs/log.jsonl.3")));
+
+      final var lines = Files.readAllLines(file, UTF_8);
+      assertTrue(lines.get(lines.size() - 1).contains("\"message\":\"message 99\""));
+   }
+
+   @Test
+   void testRotationFailure() throws IOException {
+      final var file = tempDir.resolve("log.jsonl");
+      // a non-empty directory in place of the backup file lets the rotation fail
+      final var blocker = Files.createDirectories(tempDir.resolve("log.jsonl.1"));
+      Files.writeString(blocker.resolve("file"), "");
+
+      try (var sink = new JsonLinesLogSink(file, 100, 1)) {
+         sink.writeStatus(0, PLUGIN_ID, "main", new Status(IStatus.INFO, PLUGIN_ID, "message 1"));
+         assertThrows(IOException.class, () -> sink.writeStatus(0, PLUGIN_ID, "main", new Status(IStatus.INFO, PLUGIN_ID,
+            "message 2")));
+
+         Files.delete(blocker.resolve("file"));
+         Files.delete(blocker);
+         sink.writeStatus(0, PLUGIN_ID, "main", new Status(IStatus.INFO, PLUGIN_ID, "message 3"));
+      }
+
+      final var lines = Files.readAllLines(file, UTF_8);
+      assertEquals(1, lines.size());
+      assertTrue(lines.get(0).contains("\"message\":\"message 3\""), lines.get(0));
+      assertTrue(Files.readString(tempDir.resolve("log.jsonl.1"), UTF_8).contains("\"message\":\"message 1\""));
+   }
+
+   @Test
+   void testWriteRecords() throws IOException {
+      final var file = tempDir.resolve("log.jsonl");
+      try (var sink = new JsonLinesLogSink(file, 1_000_000, 1)) {
+         sink.writeStatus(0, PLUGIN_ID, "main", new Status(IStatus.ERROR, PLUGIN_ID, 42, "Failed \"x\"\n\tat\\y",
+            new IllegalStateException("boom")));
+         sink.writeDuration(1_000, PLUGIN_ID, "worker-1", "build", 123);
+      }
+
+      final var lines = Files.readAllLines(file, UTF_8);
+      assertEquals(2, lines.size());
+      assertTrue(lines.get(0).startsWith("{\"timestamp\":\"1970-01-01T00:00:00Z\",\"plugin\":\"" + PLUGIN_ID
+            + "\",\"severity\":\"ERROR\",\"thread\":\"main\",\"message\":\"Failed \\\"x\\\"\\n\\tat\\\\y\",\"code\":42,"
+            + "\"exception\":\"java.lang.IllegalStateException: boom"), lines.get(0));
+      assertTrue(lines.get(0).endsWith("\"}"), lines.get(0));
+      assertEquals("{\"timestamp\":\"1970-01-01T00:00:01Z\",\"plugin\":\"" + PLUGIN_ID
+            + "\",\"severity\":\"INFO\",\"thread\":\"worker-1\",\"operation\":\"build\",\"durationMs\":123}", lines.get(1));
+   }
+}
@@ -0,0 +1,89 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class LogRateLimiterTest {
+
+   private static final String PLUGIN_ID = "de.sebthom.eclipse.commons.tests";
+
+   private static IStatus newError(final String msg, final Throwable ex) {
+      return new Status(IStatus.ERROR, PLUGIN_ID, msg, ex);
+   }
+
+   @Test
+   void testRateLimit() {
+      final var now = new AtomicLong();
+      final var limiter = new LogRateLimiter(PLUGIN_ID, 3, 1_000, 60_000, now::get);
+      final var ex = new IllegalStateException();
+
+      // statuses with the same template are limited, regardless of the formatted message
+      for (int i = 0; i < 3; i++) {
+         assertTrue(limiter.tryAcquire(newError("Failed " + i, ex), "Failed {0}"));
+      }
+      assertFalse(limiter.tryAcquire(newError("Failed 3", ex), "Failed {0}"));
+      assertFalse(limiter.tryAcquire(newError("Failed 4", ex), "Failed {0}"));
+      assertEquals(2, limiter.getSuppressedCount());
+
+      // other fingerprints are not affected
+      assertTrue(limiter.tryAcquire(newError("Failed 5", new IllegalArgumentException()), "Failed {0}"));
+      assertTrue(limiter.tryAcquire(Status.warning("Failed 6"), "Failed {0}"));
+      assertTrue(limiter.tryAcquire(newError("Other", ex), "Other"));
+
+      // one token is refilled per interval
+      now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_500));
+      assertTrue(limiter.tryAcquire(newError("Failed 7", ex), "Failed {0}"));
+      assertFalse(limiter.tryAcquire(newError("Failed 8", ex), "Failed {0}"));
+      assertEquals(3, limiter.getSuppressedCount());
+
+      // summaries are only due after the summary interval
+      assertTrue(limiter.pollSummaries(false).isEmpty());
+      now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60_000));
+      final var summaries = limiter.pollSummaries(false);
+      assertEquals(1, summaries.size());
+      assertEquals(IStatus.ERROR, summaries.get(0).getSeverity());
+      assertEquals("3 similar log entries were suppressed: Failed {0}", summaries.get(0).getMessage());
+      assertTrue(limiter.pollSummaries(true).isEmpty());
+
+      // the bucket is refilled completely after a longer pause
+      for (int i = 0; i < 3; i++) {
+         assertTrue(limiter.tryAcquire(newError("Failed", ex), "Failed {0}"));
+      }
+      assertFalse(limiter.tryAcquire(newError("Failed", ex), "Failed {0}"));
+   }
+
+   @Test
+   void testSummariesOfEvictedFingerprints() {
+      final var now = new AtomicLong();
+      final var limiter = new LogRateLimiter(PLUGIN_ID, 1, 1_000, 60_000, now::get);
+
+      assertTrue(limiter.tryAcquire(Status.error("Evicted"), "Evicted"));
+      assertFalse(limiter.tryAcquire(Status.error("Evicted"), "Evicted"));
+      assertFalse(limiter.tryAcquire(Status.error("Evicted"), "Evicted"));
+
+      // more fingerprints than buckets are kept evict the bucket of the suppressed statuses
+      for (int i = 0; i < LogRateLimiter.MAX_FINGERPRINTS; i++) {
+         assertTrue(limiter.tryAcquire(Status.error("Other " + i), "Other " + i));
+      }
+
+      assertEquals(List.of("2 similar log entries were suppressed: Evicted"), limiter.pollSummaries(true).stream().map(
+         IStatus::getMessage).toList());
+      assertTrue(limiter.pollSummaries(true).isEmpty());
+   }
+}
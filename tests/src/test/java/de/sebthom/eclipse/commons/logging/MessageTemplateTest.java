@@ -0,0 +1,62 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.eclipse.osgi.util.NLS;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class MessageTemplateTest {
+
+   private static void assertFormatsLikeNLS(final String pattern, final Object... args) {
+      String expected;
+      try {
+         expected = NLS.bind(pattern, args);
+      } catch (final IllegalArgumentException ex) {
+         assertThrows(IllegalArgumentException.class, () -> MessageTemplate.of(pattern).format(args), pattern);
+         return;
+      }
+      assertEquals(expected, MessageTemplate.of(pattern).format(args), pattern);
+   }
+
+   @Test
+   void testFormat() {
+      assertFormatsLikeNLS("Hello World");
+      assertFormatsLikeNLS("Hello {0}", "World");
+      assertFormatsLikeNLS("{1} {0} {1}", "a", "b");
+      assertFormatsLikeNLS("Missing {2} and {-1}", "a");
+      assertFormatsLikeNLS("Null {0}", (Object) null);
+      assertFormatsLikeNLS("It''s '{0}' {0}", "x");
+      assertFormatsLikeNLS("Unclosed '{0} and { and '", "x");
+      assertFormatsLikeNLS("Invalid {x}", "x");
+      assertFormatsLikeNLS("Empty {}", "x");
+      assertFormatsLikeNLS("Number {0}", 42);
+   }
+
+   @Test
+   void testFormatRandomPatterns() {
+      final var random = new Random(42);
+      final var alphabet = "{}0123-+'ab ".toCharArray();
+      final var args = new Object[] {"x", null, 3};
+      for (int n = 0; n < 100_000; n++) {
+         final var pattern = new StringBuilder();
+         for (int i = random.nextInt(12); i > 0; i--) {
+            pattern.append(alphabet[random.nextInt(alphabet.length)]);
+         }
+         final var argCount = random.nextInt(args.length + 1);
+         final var patternArgs = new Object[argCount];
+         System.arraycopy(args, 0, patternArgs, 0, argCount);
+         assertFormatsLikeNLS(pattern.toString(), patternArgs);
+      }
+   }
+}
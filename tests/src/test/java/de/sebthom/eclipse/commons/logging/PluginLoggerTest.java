@@ -0,0 +1,73 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IStatus;
+import org.junit.jupiter.api.Test;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+import net.sf.jstuff.core.logging.Logger;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class PluginLoggerTest {
+
+   @Test
+   @SuppressWarnings("deprecation")
+   void testDisabledDebugDoesNotAllocate() {
+      final var logger = new PluginLogger(EclipseCommonsPlugin.get().getBundle());
+      logger.isDebugEnabled(); // registers the debug options listener
+      logger.setDebugOption("false");
+      assertFalse(logger.isDebugEnabled());
+
+      final var threadMXBean = ManagementFactory.getThreadMXBean();
+      assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+      final var allocMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      assumeTrue(allocMXBean.isThreadAllocatedMemorySupported() && allocMXBean.isThreadAllocatedMemoryEnabled());
+
+      final Object arg = "arg";
+      final Supplier<String> msg = () -> "message " + System.nanoTime();
+      final long threadId = Thread.currentThread().getId();
+      long allocated = Long.MAX_VALUE;
+      // repeat so the measurement is taken from JIT compiled code
+      for (int round = 0; round < 5; round++) {
+         final long before = allocMXBean.getThreadAllocatedBytes(threadId);
+         for (int i = 0; i < 100_000; i++) {
+            logger.debug("message");
+            logger.debug("message {0}", arg);
+            logger.debug("message {0} {1}", arg, arg);
+            logger.debug(msg);
+         }
+         allocated = Math.min(allocated, allocMXBean.getThreadAllocatedBytes(threadId) - before);
+      }
+      assertTrue(allocated < 1024, "Disabled debug calls allocated " + allocated + " bytes");
+
+      logger.setDebugOption(null);
+      assertEquals(Logger.create(EclipseCommonsPlugin.get().getPluginId()).isInfoEnabled(), logger.isDebugEnabled());
+   }
+
+   @Test
+   void testMetrics() {
+      final var logger = new PluginLogger(EclipseCommonsPlugin.get().getBundle());
+      final var pluginId = EclipseCommonsPlugin.get().getPluginId();
+      final long errors = LogMetrics.getCount(pluginId, IStatus.ERROR);
+      final long warnings = LogMetrics.getCount(IStatus.WARNING);
+
+      logger.error("PluginLoggerTest error {0}", 1);
+      logger.warn("PluginLoggerTest warning");
+      assertEquals(errors + 1, LogMetrics.getCount(pluginId, IStatus.ERROR));
+      assertTrue(LogMetrics.getCount(IStatus.WARNING) >= warnings + 1);
+      assertTrue(LogMetrics.getPluginIds().contains(pluginId));
+   }
+}
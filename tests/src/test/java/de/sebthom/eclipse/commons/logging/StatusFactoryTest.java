@@ -0,0 +1,71 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.logging;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.osgi.util.NLS;
+import org.junit.jupiter.api.Test;
+
+import de.sebthom.eclipse.commons.internal.EclipseCommonsPlugin;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class StatusFactoryTest {
+
+   @Test
+   void testCreateStatus() {
+      final var factory = new StatusFactory(EclipseCommonsPlugin.get().getBundle());
+
+      final var status = factory.createError("Constant error");
+      assertSame(status, factory.createError("Constant error"));
+      assertEquals(IStatus.ERROR, status.getSeverity());
+      assertEquals("Constant error", status.getMessage());
+      assertNotSame(status, factory.createWarning("Constant error"));
+      assertNotSame(factory.createError(null), factory.createError(null));
+
+      assertEquals("Failed to process x: 42", factory.createError("Failed to process {0}: {1}", "x", 42).getMessage());
+      assertEquals("Missing <missing argument>", factory.createWarning("Missing {1}", "x").getMessage());
+
+      final var ex = new IllegalStateException("boom");
+      final var statusWithException = factory.createError(ex, "Constant error");
+      assertNotSame(status, statusWithException);
+      assertSame(ex, statusWithException.getException());
+   }
+
+   @Test
+   void testCreateStatusFormatsLikeNLS() {
+      final var factory = new StatusFactory(EclipseCommonsPlugin.get().getBundle());
+      final Object[][] cases = { //
+         {"Failed to process {0}: {1}", "x", 42}, //
+         {"It''s '{0}' {0}", "x"}, //
+         {"Unclosed '{0} and { and '", "x"}, //
+         {"Missing {1} and {-1}", "x"}, //
+         {"Null {0}", null}, //
+         {"Invalid {x}", "x"}, //
+         {"Empty {}", "x"}};
+      for (final var c : cases) {
+         final var pattern = (String) c[0];
+         final var args = Arrays.copyOfRange(c, 1, c.length);
+         String expected;
+         try {
+            expected = NLS.bind(pattern, args);
+         } catch (final IllegalArgumentException ex) {
+            assertThrows(IllegalArgumentException.class, () -> factory.createError(pattern, args), pattern);
+            assertThrows(IllegalArgumentException.class, () -> factory.createWarning(new IllegalStateException(), pattern, args),
+               pattern);
+            continue;
+         }
+         assertEquals(expected, factory.createError(pattern, args).getMessage(), pattern);
+         assertEquals(expected, factory.createWarning(new IllegalStateException(), pattern, args).getMessage(), pattern);
+      }
+   }
+}
@@ -0,0 +1,142 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import static net.sf.jstuff.core.validation.NullAnalysisHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.Job;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class ProjectsTest {
+
+   private static final String BUILDER_ID = "de.sebthom.eclipse.commons.tests.builder";
+
+   private IProject project = lateNonNull();
+
+   @BeforeEach
+   void setUp() throws CoreException {
+      final IProject p = project = ResourcesPlugin.getWorkspace().getRoot().getProject(getClass().getName() + System.currentTimeMillis());
+      p.create(null);
+      p.open(null);
+   }
+
+   @Test
+   void testEditDescription() throws CoreException {
+      final var otherBuilderId = BUILDER_ID + "2";
+      final var descriptionChanges = new AtomicInteger();
+      final IResourceChangeListener listener = event -> {
+         final var delta = event.getDelta();
+         final var projectDelta = delta == null ? null : delta.findMember(project.getFullPath());
+         if (projectDelta != null && (projectDelta.getFlags() & IResourceDelta.DESCRIPTION) != 0) {
+            descriptionChanges.incrementAndGet();
+         }
+      };
+      ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+      try {
+         Projects.editDescription(project) //
+            .addBuilder(BUILDER_ID) //
+            .addBuilder(otherBuilderId) //
+            .removeBuilder(otherBuilderId) //
+            .apply(null);
+         assertEquals(1, descriptionChanges.get());
+         assertTrue(Projects.hasBuilder(project, BUILDER_ID));
+         assertFalse(Projects.hasBuilder(project, otherBuilderId));
+
+         // changes without effect do not write the description
+         Projects.editDescription(project).addBuilder(BUILDER_ID).removeBuilder(otherBuilderId).apply(null);
+         assertEquals(1, descriptionChanges.get());
+
+         Projects.removeBuilder(project, BUILDER_ID, null);
+         assertEquals(2, descriptionChanges.get());
+         assertFalse(Projects.hasBuilder(project, BUILDER_ID));
+      } finally {
+         ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+      }
+   }
+
+   @Test
+   void testFindProjectOfResource() throws CoreException {
+      final var location = project.getLocation();
+      final var locationURI = project.getLocationURI();
+      assertEquals(project, Projects.findProjectOfResource(location));
+      assertEquals(project, Projects.findProjectOfResource(location.append("src/Foo.java")));
+      assertEquals(project, Projects.findProjectOfResource(locationURI));
+      assertNull(Projects.findProjectOfResource(location.removeLastSegments(1).append("unknown/src/Foo.java")));
+
+      final var fileURI = project.getFile("src/Foo.java").getLocationURI();
+      final var unknownURI = URI.create("unknown:/src/Foo.java");
+      assertEquals(Map.of(locationURI, project, fileURI, project), Projects.findProjectsOfResources(List.of(locationURI, fileURI,
+         unknownURI)));
+
+      // outside of workspace operations the index itself is updated when projects are created or deleted
+      final var workspace = ResourcesPlugin.getWorkspace();
+      final var otherProject = workspace.getRoot().getProject(project.getName() + "-other");
+      otherProject.create(null);
+      try {
+         assertFalse(workspace.isTreeLocked());
+         assertNull(Job.getJobManager().currentRule());
+         assertEquals(otherProject, Projects.findProjectOfResource(otherProject.getLocation().append("src/Foo.java")));
+      } finally {
+         otherProject.delete(true, null);
+      }
+      assertNull(Projects.findProjectOfResource(otherProject.getLocation()));
+
+      // inside a workspace operation changes are not reported to the index yet, the current project locations are used instead
+      workspace.run(monitor -> {
+         project.delete(true, monitor);
+         assertNull(Projects.findProjectOfResource(location));
+         otherProject.create(monitor);
+         assertEquals(otherProject, Projects.findProjectOfResource(otherProject.getLocation()));
+         otherProject.delete(true, monitor);
+      }, workspace.getRoot(), 0, null);
+      assertNull(Projects.findProjectOfResource(location));
+   }
+
+   @Test
+   void testHasBuilder() throws CoreException {
+      assertFalse(Projects.hasBuilder(project, BUILDER_ID));
+
+      // the cached builder ids are refreshed when the description changes
+      final var desc = project.getDescription();
+      final var builder = desc.newCommand();
+      builder.setBuilderName(BUILDER_ID);
+      desc.setBuildSpec(new ICommand[] {builder});
+      project.setDescription(desc, null);
+      assertTrue(Projects.hasBuilder(project, BUILDER_ID));
+
+      desc.setBuildSpec(new ICommand[0]);
+      project.setDescription(desc, null);
+      assertFalse(Projects.hasBuilder(project, BUILDER_ID));
+   }
+
+   @Test
+   void testHasNature() throws CoreException {
+      assertFalse(Projects.hasNature(project, "org.eclipse.jdt.core.javanature"));
+      assertEquals(0, Projects.getOpenProjectsWithNature("org.eclipse.jdt.core.javanature").filter(project::equals).count());
+
+      project.close(null);
+      assertFalse(Projects.hasNature(project, "org.eclipse.jdt.core.javanature"));
+      assertThrows(CoreException.class, () -> Projects.hasBuilder(project, BUILDER_ID));
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import static net.sf.jstuff.core.validation.NullAnalysisHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class ResourceTraversalTest {
+
+   private IProject project = lateNonNull();
+
+   @BeforeEach
+   void setUp() throws CoreException {
+      final IProject p = project = ResourcesPlugin.getWorkspace().getRoot().getProject(getClass().getName() + System.currentTimeMillis());
+      p.create(null);
+      p.open(null);
+
+      for (int i = 0; i < 10; i++) {
+         final var folder = p.getFolder("folder" + i);
+         folder.create(true, true, null);
+         for (int j = 0; j < 10; j++) {
+            folder.getFile("file" + j + ".txt").create(new ByteArrayInputStream(("content" + j).getBytes()), true, null);
+            folder.getFile("file" + j + ".bin").create(new ByteArrayInputStream(new byte[0]), true, null);
+         }
+      }
+   }
+
+   @Test
+   void testForEachFile() throws CoreException {
+      final var results = new ArrayList<String>();
+      final var callerThread = Thread.currentThread();
+      ResourceTraversal.forEachFile(project, proxy -> proxy.getName().endsWith(".txt"), Resources::readString, result -> {
+         assertSame(callerThread, Thread.currentThread());
+         results.add(result);
+      }, project, ForkJoinPool.commonPool(), 2, new NullProgressMonitor());
+
+      assertEquals(100, results.size());
+      assertEquals(10, new HashSet<>(results).size());
+   }
+
+   @Test
+   void testForEachFileFailure() {
+      final var processedFiles = new AtomicInteger();
+      assertThrows(CoreException.class, () -> ResourceTraversal.forEachFile(project, proxy -> true, (final IFile file) -> {
+         if (processedFiles.incrementAndGet() == 5)
+            throw new IllegalStateException("failed");
+         return null;
+      }, result -> { /* ignore */ }, null));
+
+      final var canceledMonitor = new NullProgressMonitor();
+      canceledMonitor.setCanceled(true);
+      assertThrows(OperationCanceledException.class, () -> ResourceTraversal.forEachFile(project, proxy -> true, file -> file,
+         result -> { /* ignore */ }, canceledMonitor));
+   }
+}
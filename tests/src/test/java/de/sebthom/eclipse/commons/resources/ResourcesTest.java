@@ -0,0 +1,141 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.resources;
+
+import static java.nio.charset.StandardCharsets.*;
+import static net.sf.jstuff.core.validation.NullAnalysisHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class ResourcesTest {
+
+   private static final String TEST_UNICODE = "Hello, World! 😊こんにちは\n";
+
+   private IProject project = lateNonNull();
+
+   private IFile createFile(final String name, final String content) throws CoreException {
+      final var file = project.getFile(name);
+      file.create(new ByteArrayInputStream(content.getBytes(UTF_8)), true, null);
+      file.setCharset(UTF_8.name(), null);
+      return file;
+   }
+
+   @BeforeEach
+   void setUp() throws CoreException {
+      final IProject p = project = ResourcesPlugin.getWorkspace().getRoot().getProject(getClass().getName() + System.currentTimeMillis());
+      p.create(null);
+      p.open(null);
+   }
+
+   @Test
+   void testLastModified() throws IOException, CoreException {
+      final var files = new ArrayList<IResource>();
+      for (int i = 0; i < 10; i++) {
+         files.add(createFile("testfile" + i + ".txt", TEST_UNICODE));
+      }
+      files.add(project.getFolder("subfolder"));
+      final var missingFile = project.getFile("missing.txt");
+      files.add(missingFile);
+
+      final var timestamps = Resources.lastModified(files);
+      assertEquals(files.size(), timestamps.size());
+      for (final var file : files) {
+         assertEquals(Resources.lastModified(file), timestamps.get(file), file.getName());
+      }
+      assertEquals(0, timestamps.get(missingFile));
+
+      // cached timestamps are reused within the max age
+      final var file = (IFile) files.get(0);
+      final long lastModified = Resources.lastModified(file, 0);
+      Files.setLastModifiedTime(Resources.toAbsolutePath(file), FileTime.fromMillis(lastModified - 10_000));
+      assertEquals(lastModified, Resources.lastModified(file, 60_000));
+      assertEquals(lastModified - 10_000, Resources.lastModified(file, 0));
+      assertEquals(lastModified - 10_000, Resources.lastModified(List.of(file), 60_000).get(file));
+   }
+
+   @Test
+   void testLines() throws IOException, CoreException {
+      final var file = createFile("testfile.txt", "line1\nline2\r\nline3");
+      try (var lines = Resources.lines(file)) {
+         assertEquals(List.of("line1", "line2", "line3"), lines.toList());
+      }
+      try (var lines = Resources.lines(file)) {
+         assertEquals(List.of("line1"), lines.limit(1).toList());
+      }
+
+      // the file's charset is used for decoding
+      file.setCharset(UTF_16.name(), null);
+      file.setContents(new ByteArrayInputStream("line1\nline2".getBytes(UTF_16)), true, false, null);
+      try (var lines = Resources.lines(file)) {
+         assertEquals(List.of("line1", "line2"), lines.toList());
+      }
+
+      // malformed input is replaced instead of failing the stream
+      file.setCharset(UTF_8.name(), null);
+      file.setContents(new ByteArrayInputStream(new byte[] {'a', (byte) 0xC3, '\n', 'b'}), true, false, null);
+      try (var lines = Resources.lines(file)) {
+         assertEquals(List.of("a\uFFFD", "b"), lines.toList());
+      }
+
+      final var largeFile = createFile("largefile.txt", TEST_UNICODE.repeat(100_000));
+      try (var lines = Resources.lines(largeFile)) {
+         assertEquals(100_000, lines.parallel().filter(line -> line.endsWith("こんにちは")).count());
+      }
+   }
+
+   @Test
+   void testReadBytesAndString() throws IOException, CoreException {
+      final var file = createFile("testfile.txt", TEST_UNICODE);
+      assertArrayEquals(TEST_UNICODE.getBytes(UTF_8), Resources.readBytes(file));
+      assertEquals(TEST_UNICODE, Resources.readString(file));
+
+      // out-of-sync files are read via EFS
+      Files.writeString(Resources.toAbsolutePath(file), "changed", UTF_8);
+      assertEquals("changed", Resources.readString(file));
+
+      file.delete(true, null);
+      assertThrows(CoreException.class, () -> Resources.readBytes(file));
+   }
+
+   @Test
+   void testReadLargeFile() throws IOException, CoreException {
+      final var content = TEST_UNICODE.repeat(10_000);
+      final var file = createFile("largefile.txt", content);
+
+      // in-sync files are read directly from the file system
+      assertTrue(file.isSynchronized(IResource.DEPTH_ZERO));
+      try (InputStream is = file.getContents(true)) {
+         assertArrayEquals(IOUtils.toByteArray(is), Resources.readBytes(file));
+      }
+      assertEquals(content, Resources.readString(file));
+
+      // out-of-sync files are read via EFS
+      final var changedContent = content + "changed";
+      Files.writeString(Resources.toAbsolutePath(file), changedContent, UTF_8);
+      assertArrayEquals(changedContent.getBytes(UTF_8), Resources.readBytes(file));
+      assertEquals(changedContent, Resources.readString(file));
+   }
+}
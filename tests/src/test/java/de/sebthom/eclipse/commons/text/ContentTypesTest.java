@@ -0,0 +1,126 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import static net.sf.jstuff.core.validation.NullAnalysisHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class ContentTypesTest {
+
+   private IProject project = lateNonNull();
+   private IFile testFile = lateNonNull();
+
+   @BeforeEach
+   void setUp() throws CoreException {
+      final IProject p = project = ResourcesPlugin.getWorkspace().getRoot().getProject(getClass().getName() + System.currentTimeMillis());
+      p.create(null);
+      p.open(null);
+
+      testFile = p.getFile("testfile.txt");
+      testFile.create(new ByteArrayInputStream("Hello, World!".getBytes()), true, null);
+      ContentTypes.clearCache();
+   }
+
+   @Test
+   void testContentSniffLimit() {
+      final var xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root>\n";
+      final var expected = ContentTypes.of(new Document(xml + "</root>"));
+
+      // only the beginning of a large document is inspected
+      assertEquals(expected, ContentTypes.of(new Document(xml + "<a/>\n".repeat(1_000_000) + "</root>")));
+
+      // an XML describer looking for the root element would read past the large leading comment without the limit
+      final var maxReadOffset = new AtomicInteger();
+      final var largeDoc = new Document("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!--" + "x".repeat(5_000_000) + "-->\n<root/>") {
+         @Override
+         public String get(final int offset, final int length) throws BadLocationException {
+            maxReadOffset.accumulateAndGet(offset + length, Math::max);
+            return super.get(offset, length);
+         }
+
+         @Override
+         public char getChar(final int offset) throws BadLocationException {
+            maxReadOffset.accumulateAndGet(offset + 1, Math::max);
+            return super.getChar(offset);
+         }
+      };
+      final int sniffLimit = 1024;
+      ContentTypes.setContentSniffLimit(sniffLimit);
+      try {
+         ContentTypes.of(largeDoc);
+         assertTrue(maxReadOffset.get() > 0);
+         // the document is encoded lazily in chunks, so at most one chunk beyond the limit is read
+         assertTrue(maxReadOffset.get() <= sniffLimit + DocumentInputStream.DEFAULT_CHUNK_SIZE, "read up to " + maxReadOffset.get());
+      } finally {
+         ContentTypes.setContentSniffLimit(ContentTypes.DEFAULT_CONTENT_SNIFF_LIMIT);
+      }
+
+      assertThrows(IllegalArgumentException.class, () -> ContentTypes.setContentSniffLimit(0));
+   }
+
+   @Test
+   void testCache() throws CoreException {
+      final var stats = ContentTypes.getCacheStatistics();
+
+      final var contentTypes = ContentTypes.of(testFile);
+      assertFalse(contentTypes.isEmpty());
+      assertEquals(stats.missCount() + 1, ContentTypes.getCacheStatistics().missCount());
+      assertEquals(1, ContentTypes.getCacheStatistics().size());
+
+      assertEquals(contentTypes, ContentTypes.of(testFile));
+      assertEquals(stats.hitCount() + 1, ContentTypes.getCacheStatistics().hitCount());
+
+      // modifying the file changes the modification stamp and evicts the entry
+      testFile.setContents(new ByteArrayInputStream("Hello!".getBytes()), true, false, null);
+      assertEquals(0, ContentTypes.getCacheStatistics().size());
+      assertEquals(contentTypes, ContentTypes.of(testFile));
+      assertEquals(stats.missCount() + 2, ContentTypes.getCacheStatistics().missCount());
+
+      testFile.delete(true, null);
+      assertEquals(0, ContentTypes.getCacheStatistics().size());
+   }
+
+   @Test
+   void testOfFiles() throws CoreException {
+      final var files = new ArrayList<IFile>();
+      files.add(testFile);
+      for (final var name : List.of("test.xml", "test", "test.unknown-extension")) {
+         final var file = project.getFile(name);
+         file.create(new ByteArrayInputStream("<?xml version=\"1.0\"?><root/>".getBytes()), true, null);
+         files.add(file);
+      }
+
+      final var result = ContentTypes.ofFiles(files.stream(), 2, new NullProgressMonitor());
+      assertEquals(files, List.copyOf(result.keySet()));
+      for (final var file : files) {
+         assertEquals(ContentTypes.of(file), result.get(file), file.getName());
+      }
+
+      final var canceledMonitor = new NullProgressMonitor();
+      canceledMonitor.setCanceled(true);
+      assertThrows(OperationCanceledException.class, () -> ContentTypes.ofFiles(files.stream(), canceledMonitor));
+   }
+}
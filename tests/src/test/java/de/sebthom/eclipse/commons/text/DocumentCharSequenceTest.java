@@ -0,0 +1,82 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.jface.text.Document;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class DocumentCharSequenceTest {
+
+   private static final String TEXT = "foo bar\nbaz foo\nfoobar";
+
+   @Test
+   void testCharAt() {
+      final var doc = new Document(TEXT);
+      final var chars = new DocumentCharSequence(doc, 0, doc.getLength(), 3);
+      assertEquals(TEXT.length(), chars.length());
+      // forward and backward access across window boundaries
+      for (int i = 0; i < TEXT.length(); i++) {
+         assertEquals(TEXT.charAt(i), chars.charAt(i));
+      }
+      for (int i = TEXT.length() - 1; i >= 0; i--) {
+         assertEquals(TEXT.charAt(i), chars.charAt(i));
+      }
+      assertThrows(IndexOutOfBoundsException.class, () -> chars.charAt(TEXT.length()));
+      assertEquals(TEXT, chars.toString());
+   }
+
+   @Test
+   void testRegexMatching() {
+      final var doc = new Document(TEXT);
+      final var matcher = Pattern.compile("(?<=\\s|^)foo\\w*").matcher(new DocumentCharSequence(doc, 0, doc.getLength(), 4));
+      final var matches = new ArrayList<String>();
+      while (matcher.find()) {
+         matches.add(matcher.group());
+      }
+      assertEquals(List.of("foo", "foo", "foobar"), matches);
+   }
+
+   @Test
+   void testSubSequence() {
+      final var doc = new Document(TEXT);
+      final var chars = new DocumentCharSequence(doc);
+      final var sub = chars.subSequence(4, 11);
+      assertEquals("bar\nbaz", sub.toString());
+      assertEquals("r\nb", sub.subSequence(2, 5).toString());
+      assertEquals(0, chars.subSequence(3, 3).length());
+   }
+
+   @Test
+   void testDocumentReader() throws IOException {
+      final var doc = new Document(TEXT);
+      try (var reader = new DocumentReader(doc)) {
+         final var buf = new char[5];
+         assertEquals(5, reader.read(buf));
+         assertEquals("foo b", new String(buf));
+         reader.mark(100);
+         assertEquals(3, reader.skip(3));
+         assertEquals('b', reader.read());
+         reader.reset();
+         final var rest = new StringBuilder();
+         int n;
+         while ((n = reader.read(buf)) != -1) {
+            rest.append(buf, 0, n);
+         }
+         assertEquals(TEXT.substring(5), rest.toString());
+      }
+   }
+}
@@ -11,6 +11,7 @@
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 
@@ -25,6 +26,9 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import de.sebthom.eclipse.commons.text.DocumentInputStream.Mode;
+import de.sebthom.eclipse.commons.text.DocumentInputStream.ModificationPolicy;
+
 /**
  * @author Sebastian Thomschke
  */
@@ -80,6 +84,30 @@ void testAvailable() throws IOException {
       }
    }
 
+   @Test
+   void testChunkedModeMatchesPerCharMode() throws IOException {
+      final var sb = new StringBuilder();
+      for (int i = 0; i < 10_000; i++) {
+         sb.append(i % 3 == 0 ? EMOJI : i % 3 == 1 ? JAPANESE : TEST_ASCII).append('\n');
+      }
+      sb.append('\uD800'); // isolated high surrogate at the end of the input
+      document.set(sb.toString());
+
+      final byte[] expected;
+      try (var is = new DocumentInputStream(document, Mode.PER_CHAR)) {
+         assertEquals(Mode.PER_CHAR, is.getMode());
+         expected = is.readAllBytes();
+      }
+
+      // odd chunk sizes to split surrogate pairs at chunk boundaries
+      for (final int chunkSize : new int[] {2, 3, 7, 1000, DocumentInputStream.DEFAULT_CHUNK_SIZE}) {
+         try (var is = new DocumentInputStream(document, Mode.CHUNKED, chunkSize)) {
+            assertEquals(Mode.CHUNKED, is.getMode());
+            assertArrayEquals(expected, is.readAllBytes(), "chunkSize=" + chunkSize);
+         }
+      }
+   }
+
    @Test
    void testEndOfStream() throws IOException {
       try (var is = new DocumentInputStream(document)) {
@@ -89,6 +117,48 @@ void testEndOfStream() throws IOException {
       }
    }
 
+   @Test
+   void testMarkAndReset() throws IOException {
+      document.set(TEST_ASCII);
+      for (final var mode : Mode.values()) {
+         try (var is = new DocumentInputStream(document, mode)) {
+            assertTrue(is.markSupported());
+            is.skip(7);
+            is.mark(Integer.MAX_VALUE);
+            assertEquals("World!", new String(is.readAllBytes(), UTF_8));
+            is.reset();
+            assertEquals("World!", new String(is.readAllBytes(), UTF_8));
+         }
+      }
+   }
+
+   @Test
+   void testModificationPolicyFail() throws Exception {
+      document.set(TEST_ASCII);
+      try (var is = new DocumentInputStream(document, Mode.CHUNKED, 4, ModificationPolicy.FAIL)) {
+         assertEquals(4, is.read(new byte[4]));
+         document.replace(0, 1, "J");
+         assertThrows(IOException.class, is::readAllBytes);
+      }
+
+      assertThrows(IllegalArgumentException.class, () -> new DocumentInputStream(document, Mode.PER_CHAR, 4, ModificationPolicy.FAIL));
+   }
+
+   @Test
+   void testModificationPolicyRestart() throws IOException {
+      document.set(TEST_ASCII);
+      try (var is = new DocumentInputStream(document, Mode.CHUNKED, 4, ModificationPolicy.RESTART)) {
+         document.set(TEST_UNICODE); // modified before first read -> transparent restart
+         assertEquals(TEST_UNICODE, new String(is.readAllBytes(), UTF_8));
+      }
+
+      try (var is = new DocumentInputStream(document, Mode.CHUNKED, 4, ModificationPolicy.RESTART)) {
+         is.read();
+         document.set(TEST_ASCII); // modified after first read -> restart not possible
+         assertThrows(IOException.class, is::readAllBytes);
+      }
+   }
+
    @Test
    void testReadEachByte() throws IOException {
       try (var is = new DocumentInputStream(document)) {
@@ -119,6 +189,28 @@ void testReadIntoByteArray() throws IOException {
       }
    }
 
+   @Test
+   void testReadAcrossChunkBoundaries() throws IOException {
+      final var text = (TEST_ASCII + TEST_UNICODE + '\n').repeat(50);
+      document.set(text);
+      final var expected = text.getBytes(UTF_8);
+
+      // read buffers and chunks of different odd sizes so multi-byte chars are split at both boundaries
+      for (final int chunkSize : new int[] {3, 7, 64}) {
+         for (final int readSize : new int[] {1, 5, 13}) {
+            try (var is = new DocumentInputStream(document, Mode.CHUNKED, chunkSize)) {
+               final var out = new ByteArrayOutputStream();
+               final var readBuffer = new byte[readSize];
+               int n;
+               while ((n = is.read(readBuffer)) != -1) {
+                  out.write(readBuffer, 0, n);
+               }
+               assertArrayEquals(expected, out.toByteArray(), "chunkSize=" + chunkSize + ", readSize=" + readSize);
+            }
+         }
+      }
+   }
+
    @Test
    void testSkip() throws IOException {
       try (var is = new DocumentInputStream(document)) {
@@ -0,0 +1,101 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.Position;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class DocumentSearcherTest {
+
+   private static List<Position> findSequentially(final String text, final Pattern pattern) {
+      final var result = new ArrayList<Position>();
+      final var matcher = pattern.matcher(text);
+      while (matcher.find()) {
+         if (matcher.end() > matcher.start()) {
+            result.add(new Position(matcher.start(), matcher.end() - matcher.start()));
+         }
+      }
+      return result;
+   }
+
+   private static String generateText() {
+      final var sb = new StringBuilder();
+      for (int i = 0; i < 5_000; i++) {
+         sb.append("line ").append(i).append(": foo bar Foobar\n");
+         if (i % 7 == 0) {
+            sb.append("multi\nline foo\n");
+         }
+      }
+      return sb.toString();
+   }
+
+   @Test
+   void testCancel() {
+      final var doc = new Document(generateText());
+      final var monitor = new NullProgressMonitor();
+      monitor.setCanceled(true);
+      final var patterns = List.of(DocumentSearcher.compile("foo", true, false, false));
+      assertThrows(OperationCanceledException.class, () -> DocumentSearcher.findAll(doc, patterns, monitor));
+   }
+
+   @Test
+   void testCompile() {
+      final var doc = new Document("foo Foo foobar (foo)");
+      assertEquals(List.of(new Position(0, 3), new Position(8, 3), new Position(16, 3)), //
+         DocumentSearcher.findAll(doc, DocumentSearcher.compile("foo", true, false, false)));
+      assertEquals(List.of(new Position(0, 3), new Position(16, 3)), //
+         DocumentSearcher.findAll(doc, DocumentSearcher.compile("foo", true, true, false)));
+      assertEquals(List.of(new Position(0, 3), new Position(4, 3), new Position(16, 3)), //
+         DocumentSearcher.findAll(doc, DocumentSearcher.compile("foo", false, true, false)));
+      assertEquals(List.of(new Position(15, 5)), //
+         DocumentSearcher.findAll(doc, DocumentSearcher.compile("(foo)", true, false, false)));
+      assertEquals(List.of(new Position(8, 6)), //
+         DocumentSearcher.findAll(doc, DocumentSearcher.compile("fo+b\\w+", true, false, true)));
+   }
+
+   @Test
+   void testFindAllMatchesSequentialSearch() {
+      final var text = generateText();
+      final var doc = new Document(text);
+
+      for (final var pattern : List.of( //
+         Pattern.compile("foo"), //
+         Pattern.compile("^line \\d+", Pattern.MULTILINE), //
+         Pattern.compile("bar\\s+\\w+"), //
+         Pattern.compile("multi\\nline"), // matches spanning lines
+         Pattern.compile("(?s)foo.{0,100}?Foo") // matches spanning segments
+      )) {
+         final var expected = findSequentially(text, pattern);
+         assertFalse(expected.isEmpty());
+         for (final int segmentSize : new int[] {10, 1000, text.length()}) {
+            assertEquals(expected, DocumentSearcher.findAll(doc, List.of(pattern), ForkJoinPool.commonPool(), segmentSize, null),
+               pattern + " segmentSize=" + segmentSize);
+         }
+      }
+   }
+
+   @Test
+   void testFindAllWithMultiplePatterns() {
+      final var doc = new Document("foo bar foobar");
+      assertEquals(List.of(new Position(0, 3), new Position(4, 3), new Position(8, 3), new Position(8, 6), new Position(11, 3)), //
+         DocumentSearcher.findAll(doc, List.of(Pattern.compile("foo"), Pattern.compile("bar"), Pattern.compile("foobar"),
+            Pattern.compile("o+")), null).stream().filter(p -> p.getLength() >= 3).toList());
+   }
+}
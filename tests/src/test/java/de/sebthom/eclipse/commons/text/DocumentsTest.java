@@ -0,0 +1,94 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import static java.nio.charset.StandardCharsets.*;
+import static net.sf.jstuff.core.validation.NullAnalysisHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class DocumentsTest {
+
+   private IFile testFile = lateNonNull();
+
+   @BeforeEach
+   void setUp() throws CoreException {
+      final IProject p = ResourcesPlugin.getWorkspace().getRoot().getProject(getClass().getName() + System.currentTimeMillis());
+      p.create(null);
+      p.open(null);
+
+      testFile = p.getFile("testfile.txt");
+      testFile.create(new ByteArrayInputStream("Hello, World!".getBytes(UTF_8)), true, null);
+      testFile.setCharset(UTF_8.name(), null);
+   }
+
+   @Test
+   void testGetCharset() throws CoreException {
+      final var bufMgr = FileBuffers.getTextFileBufferManager();
+      final var path = testFile.getFullPath();
+      bufMgr.connect(path, LocationKind.IFILE, null);
+      final var buffer = asNonNull(bufMgr.getTextFileBuffer(path, LocationKind.IFILE));
+      final var doc = buffer.getDocument();
+      try {
+         assertSame(buffer, Documents.getTextFileBuffer(doc));
+         assertEquals(UTF_8, Documents.getCharset(doc));
+         assertEquals(UTF_8, Documents.getCharset(doc));
+
+         // encoding changes are picked up
+         buffer.setEncoding(UTF_16.name());
+         assertEquals(UTF_16, Documents.getCharset(doc));
+      } finally {
+         bufMgr.disconnect(path, LocationKind.IFILE, null);
+      }
+
+      // disconnected buffers are not returned anymore
+      assertNull(Documents.getTextFileBuffer(doc));
+      assertNull(Documents.getCharset(doc));
+
+      assertNull(Documents.getCharset(new Document("Hello")));
+   }
+
+   @Test
+   void testGetDocument() throws CoreException {
+      assertNull(Documents.getDocument(testFile));
+
+      final var bufMgr = FileBuffers.getTextFileBufferManager();
+      final var path = testFile.getFullPath();
+      bufMgr.connect(path, LocationKind.IFILE, null);
+      final IDocument doc;
+      try {
+         doc = asNonNull(Documents.getDocument(testFile));
+         assertSame(asNonNull(bufMgr.getTextFileBuffer(path, LocationKind.IFILE)).getDocument(), doc);
+         assertEquals(path, Documents.getPath(doc));
+         assertEquals(testFile, Documents.getFile(doc));
+
+         // the document provides unsaved content
+         doc.set("unsaved");
+         assertEquals("unsaved", asNonNull(Documents.getDocument(path)).get());
+      } finally {
+         bufMgr.disconnect(path, LocationKind.IFILE, null);
+      }
+
+      assertNull(Documents.getDocument(testFile));
+      assertNull(Documents.getPath(doc));
+   }
+}
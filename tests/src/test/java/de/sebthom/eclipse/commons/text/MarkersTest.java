@@ -0,0 +1,215 @@
+/*
+ * SPDX-FileCopyrightText: © Sebastian Thomschke and contributors.
+ * SPDX-FileContributor: Sebastian Thomschke
+ * SPDX-License-Identifier: EPL-2.0
+ * SPDX-ArtifactOfProjectHomePage: https://github.com/sebthom/eclipse-commons
+ */
+package de.sebthom.eclipse.commons.text;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.AnnotationModel;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Sebastian Thomschke
+ */
+class MarkersTest {
+
+   private static final String MARKER_ID = "test.marker";
+
+   private static List<Position> getMarkerPositions(final AnnotationModel annoModel) {
+      final var result = new ArrayList<Position>();
+      annoModel.getAnnotationIterator().forEachRemaining(anno -> {
+         if (MARKER_ID.equals(anno.getType())) {
+            final var pos = annoModel.getPosition(anno);
+            result.add(new Position(pos.offset, pos.length));
+         }
+      });
+      result.sort((a, b) -> a.offset - b.offset);
+      return result;
+   }
+
+   private static Set<Annotation> getMarkers(final AnnotationModel annoModel) {
+      final var result = new HashSet<Annotation>();
+      annoModel.getAnnotationIterator().forEachRemaining(anno -> {
+         if (MARKER_ID.equals(anno.getType())) {
+            result.add(anno);
+         }
+      });
+      return result;
+   }
+
+   private static void waitForMarkers(final AnnotationModel annoModel, final List<Position> expected) throws InterruptedException {
+      final long deadline = System.currentTimeMillis() + 5_000;
+      while (!expected.equals(getMarkerPositions(annoModel)) && System.currentTimeMillis() < deadline) {
+         Thread.sleep(20);
+      }
+      assertEquals(expected, getMarkerPositions(annoModel));
+   }
+
+   @Test
+   void testScheduleMarkers() throws InterruptedException {
+      final var doc = new Document("foo bar foo");
+      final var annoModel = new AnnotationModel();
+      annoModel.connect(doc);
+
+      final var markers = new Markers(MARKER_ID);
+      markers.setCoalescingDelay(200);
+      final var computations = new AtomicInteger();
+      for (int i = 0; i < 10; i++) {
+         final int offset = i;
+         markers.scheduleMarkers(annoModel, monitor -> {
+            computations.incrementAndGet();
+            return List.of(new Position(offset, 1));
+         });
+      }
+      // only the latest request is processed
+      waitForMarkers(annoModel, List.of(new Position(9, 1)));
+      assertEquals(1, computations.get());
+
+      markers.scheduleMarkers(annoModel, doc, List.of(Pattern.compile("foo")));
+      waitForMarkers(annoModel, List.of(new Position(0, 3), new Position(8, 3)));
+
+      markers.removeMarkers();
+      assertEquals(List.of(), getMarkerPositions(annoModel));
+   }
+
+   @Test
+   void testIncrementalMarkers() throws BadLocationException {
+      final var doc = new Document("foo bar\nbaz foo\nfoo\n");
+      final var annoModel = new AnnotationModel();
+      annoModel.connect(doc);
+
+      final var patterns = List.of(Pattern.compile("foo"));
+      final var markers = new Markers(MARKER_ID);
+      markers.setMarkers(annoModel, doc, patterns);
+      assertEquals(DocumentSearcher.findAll(doc, patterns, null), getMarkerPositions(annoModel));
+
+      final var markersBefore = getMarkers(annoModel);
+      doc.replace(8, 3, "foo"); // line 2: "baz foo" -> "foo foo"
+      assertEquals(DocumentSearcher.findAll(doc, patterns, null), getMarkerPositions(annoModel));
+      // markers outside the edited line are untouched
+      final var markersAfter = getMarkers(annoModel);
+      assertEquals(markersBefore.size() + 1, markersAfter.size());
+      assertTrue(markersAfter.containsAll(markersBefore));
+
+      doc.replace(1, 1, ""); // "foo bar" -> "fo bar"
+      assertEquals(DocumentSearcher.findAll(doc, patterns, null), getMarkerPositions(annoModel));
+
+      doc.replace(0, 0, "foofoo\n");
+      assertEquals(DocumentSearcher.findAll(doc, patterns, null), getMarkerPositions(annoModel));
+
+      doc.replace(0, doc.getLength(), "bar");
+      assertEquals(List.of(), getMarkerPositions(annoModel));
+
+      markers.removeMarkers();
+      doc.replace(0, 0, "foo");
+      assertEquals(List.of(), getMarkerPositions(annoModel));
+   }
+
+   @Test
+   void testMarkerNavigation() throws BadLocationException {
+      final var doc = new Document("foo bar foo bar foo");
+      final var annoModel = new AnnotationModel();
+      annoModel.connect(doc);
+
+      final var markers = new Markers(MARKER_ID);
+      markers.setMarkers(annoModel, List.of(new Position(16, 3), new Position(0, 3), new Position(8, 3)));
+
+      assertEquals(new Position(0, 3), markers.getMarkerAt(0));
+      assertEquals(new Position(0, 3), markers.getMarkerAt(2));
+      assertNull(markers.getMarkerAt(3));
+      assertEquals(new Position(8, 3), markers.getNextMarker(0));
+      assertNull(markers.getNextMarker(16));
+      assertEquals(new Position(8, 3), markers.getPreviousMarker(16));
+      assertNull(markers.getPreviousMarker(0));
+
+      // the index follows positions shifted by document edits
+      doc.replace(0, 0, "xx");
+      assertEquals(new Position(10, 3), markers.getMarkerAt(11));
+      assertEquals(new Position(18, 3), markers.getNextMarker(10));
+
+      assertTrue(markers.removeMarkerAt(new Position(10, 3)));
+      assertFalse(markers.removeMarkerAt(new Position(10, 3)));
+      assertEquals(new Position(18, 3), markers.getNextMarker(2));
+      assertEquals(List.of(new Position(2, 3), new Position(18, 3)), getMarkerPositions(annoModel));
+
+      // markers deleted by a document change are skipped
+      doc.replace(17, 4, "");
+      assertNull(markers.getNextMarker(2));
+      assertEquals(new Position(2, 3), markers.getPreviousMarker(17));
+
+      markers.removeMarkers();
+      assertNull(markers.getMarkerAt(2));
+   }
+
+   @Test
+   void testMarkerLookupMisses() throws BadLocationException {
+      final int markerCount = 50_000;
+      final var doc = new Document("x".repeat(markerCount * 2 + 100));
+      final var annoModel = new AnnotationModel();
+      annoModel.connect(doc);
+
+      final var positions = new ArrayList<Position>(markerCount + 1);
+      positions.add(new Position(0, 50));
+      for (int i = 0; i < markerCount; i++) {
+         positions.add(new Position(60 + i * 2, 1));
+      }
+      final var markers = new Markers(MARKER_ID);
+      markers.setMarkers(annoModel, positions);
+
+      assertEquals(new Position(0, 50), markers.getMarkerAt(49));
+      assertNull(markers.getMarkerAt(50));
+      assertEquals(new Position(60, 1), markers.getMarkerAt(60));
+      assertNull(markers.getMarkerAt(61));
+
+      // uncovered offsets behind many markers must not be resolved by scanning all of them
+      final int lastOffset = 60 + markerCount * 2;
+      assertTimeout(Duration.ofSeconds(5), () -> {
+         for (int i = 0; i < 100_000; i++) {
+            assertNull(markers.getMarkerAt(lastOffset - 1 + i % 2 * 50));
+         }
+      });
+
+      // the lookup stays correct after edits moved the markers
+      doc.replace(10, 0, "yy");
+      assertEquals(new Position(0, 52), markers.getMarkerAt(51));
+      assertNull(markers.getMarkerAt(52));
+      assertEquals(new Position(62, 1), markers.getMarkerAt(62));
+      assertNull(markers.getMarkerAt(lastOffset + 1));
+
+      markers.removeMarkers();
+   }
+
+   @Test
+   void testOverlappingMarkers() {
+      final var doc = new Document("x".repeat(200));
+      final var annoModel = new AnnotationModel();
+      annoModel.connect(doc);
+
+      final var markers = new Markers(MARKER_ID);
+      markers.setMarkers(annoModel, List.of(new Position(0, 100), new Position(50, 5), new Position(52, 1)));
+
+      // covered by the first marker only, although markers starting in between end before the offset
+      assertEquals(new Position(0, 100), markers.getMarkerAt(60));
+      assertEquals(new Position(0, 100), markers.getMarkerAt(49));
+      assertEquals(new Position(50, 5), markers.getMarkerAt(54));
+      assertEquals(new Position(52, 1), markers.getMarkerAt(52));
+      assertNull(markers.getMarkerAt(100));
+
+      markers.removeMarkers();
+   }
+}